@@ -11,6 +11,7 @@ public class Box2DTest extends ApplicationAdapter {
         //t.debug();// This uses Box2DDebugRenderer, shows AABB and mass centres.
         t.setMeterSize(64);// Default = 100.
         t.setRawForces(false);// If false (default value) forces are multiplied by the mass.
+        //t.setFixedStep(1 / 60f, 5);// Steady 60 Hz physics, sprites are interpolated.
 
         // Walls:
         t.newBox("s", 0, 0, w, 30).texture("dot.png");// Down.
@@ -55,6 +56,7 @@ public class Box2DTest extends ApplicationAdapter {
                 t.newBox("d", 570, 20, 20, 40)
         ).texture("cross.png");
 
+        //t.packTextures();// Packs the textures in use into one atlas page (fewer texture binds).
         //t.destroy(bucket);// Destroys a Tabody.
     }
 
@@ -23,9 +23,12 @@
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Polygon;
@@ -35,32 +38,116 @@ import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.Box2DDebugRenderer;
 import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactFilter;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
 import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.Filter;
 import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.Manifold;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
+import com.badlogic.gdx.physics.box2d.Shape;
 import com.badlogic.gdx.physics.box2d.Transform;
+import com.badlogic.gdx.physics.box2d.WorldManifold;
 import com.badlogic.gdx.physics.box2d.World;
-
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Tabox2D, singleton class for body-texture management
+ * Tabox2D, class for body-texture management<br/>
+ * getInstance() returns a shared instance, the constructors create independent worlds
+ * (see TaboxGroup to step many of them in parallel)
  */
 public class Tabox2D {
 
     private boolean debug = false;
 
-    private static HashMap<String, Float> polyInfo;
-
     private static Tabox2D instance;
     private Box2DDebugRenderer renderer;
-    private OrthographicCamera camera;
+    private final OrthographicCamera camera = new OrthographicCamera();// Meters, for Box2DDebugRenderer.
+    private final OrthographicCamera screenCamera = new OrthographicCamera();// Pixels, for the sprites.
+    private float cameraX;
+    private float cameraY;
+    private float zoom;
+    private boolean cameraMoved;
+    private boolean culling;
+    private float cullMargin;// Largest sprite reach of the textured Tabodies.
+    private boolean cullMarginDirty;// The largest one left, recomputed on the next draw().
+    private float viewLeft, viewBottom, viewRight, viewTop;// Pixels, set by findVisible().
+    private int cullStamp;
+    private int[] visibleSlots;
+    private int visibleCount;
+    private QueryCallback cullCallback;
+    // Spatial queries (results go to the caller's array):
+    private QueryCallback aabbCallback;
+    private QueryCallback pointCallback;
+    private RayCastCallback closestRayCallback;
+    private RayCastCallback allRayCallback;
+    private Tabody[] queryOut;
+    private float[] queryFractions;
+    private int queryCount;
+    private int queryStamp;
+    private float queryX, queryY;
+    private Tabody rayHit;
+    private ContactListener contactListener;// Keeps the awake set and records contact events.
+    private ContactFilter wakeFilter;// Keeps the awake set when Box2D pairs two fixtures.
+    // Contact events of the last update(), ring buffers:
+    private float impactThreshold;
+    private Tabody[] contactA;
+    private Tabody[] contactB;
+    private byte[] contactTypes;
+    private float[] contactImpulses;
+    private float[] contactXs;
+    private float[] contactYs;
+    private int contactStart;
+    private int contactCount;
+    private int contactsDropped;
+    private boolean stepping;// Contact events are only recorded while update() steps the world.
+    private float rayHitX, rayHitY, rayNormalX, rayNormalY, rayFraction;
     private World world;
     private SpriteBatch spriteBath;
-    private List<Tabody> tabodies;
+    private ArrayList<Tabody> tabodies;
+    private ArrayList<Tabody> movers;// Dynamic and kinematic, active ones only.
+    private ArrayList<Tabody> awake;// Movers awake, or woken since the last update().
+    private ArrayList<Tabody> dirty;// Sprites to sync in the next update().
+    private List<Tabody> destroyQueue;
+    private HashMap<PoolKey, List<Tabody>> pools;
+    private PoolKey scratchKey;
+    private int poolSize;
+    private int pooled;
+    private int poolHits;
+    private int poolMisses;
+    private int nextId;
+    private List<Tabody> drawOrder;
+    private boolean drawOrderDirty;
+    private int deadInDrawOrder;
+    private HashMap<String, CachedTexture> textures;
+    private List<Disposable> atlases;
+    private int atlasPages;
+    private int atlasPageSize;
+    private int nextTextureKey;
+    private int drawCalls;
+    private int textureBinds;
+    private int spritesDrawn;
+    private Texture lastTexture;// Last texture in the draw batch.
     private ShapeRenderer sr;
     private String filterMin;
     private String filterMag;
@@ -68,6 +155,34 @@ public class Tabox2D {
     private int height;
     private float meterSize;
     private boolean rawForces;
+    // Reused by the factories, Box2D copies them on creation:
+    private BodyDef sharedBodyDef;
+    private FixtureDef sharedFixtureDef;
+    private CircleShape sharedCircle;
+    private PolygonShape sharedPolygon;
+    private float[] polyBuffer = new float[MAX_POLYGON_VERTICES * 2];
+    private int polyCacheSize = 256;
+    // Outline simplification of newPoly() and combine() (off by default):
+    private float simplifyTolerance;// Pixels.
+    private float simplifyCollinear;// Degrees.
+    private float simplifyAreaError = 0.05f;
+    private LinkedHashMap<TaboxGeometry.OutlineKey, int[][]> polyCache;// Convex pieces of each outline, LRU.
+    private float fixedStep;// 0 = variable step (default).
+    private int maxSubSteps;
+    private float accumulator;
+    private float alpha;
+    private FloatBuffer transforms;// null = export disabled.
+    private int transformCount;
+    private List<CachedTexture> snapshotTextures;// Texture table of the snapshot being written or read.
+    private int snapshotStamp;
+    private Vector2 snapshotVertex;
+    private TaboxRecorder recorder;// null if not recording.
+    private int recorderMute;// > 0 while Tabox2D calls its own public methods.
+    private HashMap<Integer, Tabody> restoredById;// Tabodies waiting to be reused by restore().
+    private TaboxStats stats;// null = profiling off.
+    private TaboxStats.FrameListener jfr;// null = no JFR events.
+    private long stepNanos;// Summed over the sub-steps of the frame.
+    private long forcesNanos;
 
     ///////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////
@@ -75,64 +190,207 @@ public class Tabox2D {
     ///////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////
 
-    private Tabox2D(Vector2 gravity) {
-        width = Gdx.graphics.getWidth();
-        height = Gdx.graphics.getHeight();
+    /**
+     * Creates an independent instance with its own world and gravity = (0, -9.8)
+     */
+    public Tabox2D() {
+        this(new Vector2(0, -9.8f));
+    }
+
+    /**
+     * Creates an independent instance with its own world, the viewport is the window size
+     *
+     * @param gravity World's gravity in the instance
+     */
+    public Tabox2D(Vector2 gravity) {
+        this(gravity, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+    }
+
+    /**
+     * Creates an independent instance with the given viewport size.<br/>
+     * Nothing here needs a GL context, the renderers are created on the first draw(),
+     * so this also works headless (servers, unit tests)
+     *
+     * @param gravity World's gravity in the instance
+     * @param width   Viewport width in pixels
+     * @param height  Viewport height in pixels
+     */
+    public Tabox2D(Vector2 gravity, int width, int height) {
+        this.width = width;
+        this.height = height;
         meterSize = 100;// 1 metter = 100px, default.
-        polyInfo = new HashMap<String, Float>();
         rawForces = false;
-
-        // Sides by polygon:
-        polyInfo.put("triangle", 3f);
-        polyInfo.put("square", 4f);
-        polyInfo.put("pentagon", 5f);
-        polyInfo.put("hexagon", 6f);
-        polyInfo.put("heptagon", 7f);
-        polyInfo.put("octagon", 8f);
-
-        // Angle of the sides:
-        polyInfo.put("triangle_angle", 120f);
-        polyInfo.put("square_angle", 90f);
-        polyInfo.put("pentagon_angle", 72f);
-        polyInfo.put("hexagon_angle", 60f);
-        polyInfo.put("heptagon_angle", 51.428f);
-        polyInfo.put("octagon_angle", 45f);
+        fixedStep = 0;
+        maxSubSteps = 5;
+        alpha = 1;
 
         filterMin = "linear";
         filterMag = "linear";
 
-        renderer = new Box2DDebugRenderer();
-        sr = new ShapeRenderer();
-        spriteBath = new SpriteBatch();
+        zoom = 1;
+        visibleSlots = new int[256];
+        cullCallback = new QueryCallback() {
+            @Override
+            public boolean reportFixture(Fixture fixture) {
+                addVisible((Tabody) fixture.getBody().getUserData());
+                return true;
+            }
+        };
+        createQueryCallbacks();
+        createContactListener();
         adjustCamera();
         tabodies = new ArrayList<Tabody>();
+        movers = new ArrayList<Tabody>();
+        awake = new ArrayList<Tabody>();
+        dirty = new ArrayList<Tabody>();
+        destroyQueue = new ArrayList<Tabody>();
+        snapshotTextures = new ArrayList<CachedTexture>();
+        snapshotVertex = new Vector2();
+        restoredById = new HashMap<Integer, Tabody>();
+        pools = new HashMap<PoolKey, List<Tabody>>();
+        scratchKey = new PoolKey();
+        poolSize = 256;
+        drawOrder = new ArrayList<Tabody>();
+        textures = new HashMap<String, CachedTexture>();
+        atlases = new ArrayList<Disposable>();
+        atlasPageSize = 1024;
         world = new World(new Vector2(gravity.x, gravity.y), true);
+        world.setContactListener(contactListener);
+        world.setContactFilter(wakeFilter);
+        sharedBodyDef = new BodyDef();
+        sharedFixtureDef = new FixtureDef();
+        sharedCircle = new CircleShape();
+        sharedPolygon = new PolygonShape();
+        polyCache = new LinkedHashMap<TaboxGeometry.OutlineKey, int[][]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TaboxGeometry.OutlineKey, int[][]> eldest) {
+                return size() > polyCacheSize;
+            }
+        };
+    }
 
-        sr = new ShapeRenderer();
+    /**
+     * Set the viewport size, e.g. when the window is resized
+     *
+     * @param width  Viewport width in pixels
+     * @param height Viewport height in pixels
+     */
+    public void setViewportSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        adjustCamera();
     }
 
     private void adjustCamera() {
-        float cameraW = width / meterSize;
-        float cameraH = height / meterSize;
-        camera = new OrthographicCamera(cameraW, cameraH);
-        // Set at 0, 0, 0 in space:
-        float camX = camera.viewportWidth / 2;
-        float camY = camera.viewportHeight / 2;
-        camera.position.set(camX, camY, 0f);
+        if (!cameraMoved) {
+            // Left-bottom corner at 0, 0 in space:
+            cameraX = width / 2f;
+            cameraY = height / 2f;
+        }
+        // Same instances, getCamera() references stay valid:
+        camera.viewportWidth = width / meterSize;
+        camera.viewportHeight = height / meterSize;
+        screenCamera.viewportWidth = width;
+        screenCamera.viewportHeight = height;
+        updateCameras();
+    }
+
+    private void updateCameras() {
+        camera.zoom = zoom;
+        camera.position.set(cameraX / meterSize, cameraY / meterSize, 0f);
         camera.update();
+        screenCamera.zoom = zoom;
+        screenCamera.position.set(cameraX, cameraY, 0f);
+        screenCamera.update();
+    }
+
+    /**
+     * Moves the camera, by default the view goes from (0, 0) to (width, height)
+     *
+     * @param x Center X of the view
+     * @param y Center Y of the view
+     */
+    public void setCameraPosition(float x, float y) {
+        cameraX = x;
+        cameraY = y;
+        cameraMoved = true;
+        updateCameras();
+    }
+
+    /**
+     * Moves the camera by the given amount
+     *
+     * @param dx Pixels in X
+     * @param dy Pixels in Y
+     */
+    public void moveCamera(float dx, float dy) {
+        setCameraPosition(cameraX + dx, cameraY + dy);
+    }
+
+    /**
+     * Set the camera zoom, 2 = the view shows twice the area
+     *
+     * @param zoom Zoom factor (1 by default)
+     */
+    public void setZoom(float zoom) {
+        if (zoom <= 0) {
+            System.err.println("setZoom(), zoom must be > 0");
+            return;
+        }
+        this.zoom = zoom;
+        updateCameras();
+    }
+
+    /**
+     * Get the center X of the view
+     *
+     * @return X in pixels
+     */
+    public float getCameraX() {
+        return cameraX;
+    }
+
+    /**
+     * Get the center Y of the view
+     *
+     * @return Y in pixels
+     */
+    public float getCameraY() {
+        return cameraY;
+    }
+
+    /**
+     * Get the camera used for the sprites, in pixels
+     *
+     * @return The camera, don't move it directly, use setCameraPosition()
+     */
+    public OrthographicCamera getCamera() {
+        return screenCamera;
+    }
+
+    /**
+     * If true, draw() only submits the Tabodies that overlap the view
+     * (found through the Box2D broadphase), off-screen bodies cost nothing
+     *
+     * @param b true to enable culling (false by default)
+     */
+    public void setCulling(boolean b) {
+        this.culling = b;
     }
 
     /**
-     * Returns and instance of Tabox2D with its own world
+     * Returns the shared instance of Tabox2D, created on the first call
      *
-     * @return The new instance
+     * @return The shared instance
      */
     public static Tabox2D getInstance() {
         return getInstance(new Vector2(0, -9.8f));
     }
 
     /**
-     * Get the list of Tabodies in the Tabox2D instance
+     * Get the list of Tabodies in the Tabox2D instance<br/>
+     * Destroying moves the last Tabody to the freed slot, so use destroyLater()
+     * while iterating this list
      *
      * @return List class of tabodies
      */
@@ -141,10 +399,10 @@ public class Tabox2D {
     }
 
     /**
-     * Returns a new instance with the given gravity
+     * Returns the shared instance, the gravity is only used when it's created
      *
      * @param gravity World's gravity in the instance
-     * @return a new instance
+     * @return The shared instance
      */
     public static Tabox2D getInstance(Vector2 gravity) {
         if (instance == null) {
@@ -193,6 +451,77 @@ public class Tabox2D {
         }
     }
 
+    /**
+     * Enables the fixed timestep mode, the frame delta is accumulated and the world
+     * is stepped in slices of the given size. Sprites are interpolated between the
+     * last two physics states, so the motion stays smooth at any frame rate
+     *
+     * @param step        Seconds per physics step, e.g. 1 / 60f (0 = variable step)
+     * @param maxSubSteps Max steps per update(), the time above that is dropped
+     */
+    public void setFixedStep(float step, int maxSubSteps) {
+        if (step < 0 || maxSubSteps < 1) {
+            System.err.println("setFixedStep(), step must be >= 0 and maxSubSteps >= 1, using variable step");
+            step = 0;
+            maxSubSteps = 1;
+        }
+        this.fixedStep = step;
+        this.maxSubSteps = maxSubSteps;
+        this.accumulator = 0;
+        this.alpha = 1;
+        for (int i = 0; i < movers.size(); i++) {
+            Tabody t = movers.get(i);
+            t.prevX = t.x;
+            t.prevY = t.y;
+            t.prevAngle = t.angle;
+        }
+    }
+
+    /**
+     * Get the fixed step
+     *
+     * @return Seconds per step, 0 in variable step mode
+     */
+    public float getFixedStep() {
+        return fixedStep;
+    }
+
+    /**
+     * Get the max steps per update() in fixed step mode
+     *
+     * @return Max sub-steps
+     */
+    public int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    /**
+     * Get the pixels per meter
+     *
+     * @return The meter size
+     */
+    public float getMeterSize() {
+        return meterSize;
+    }
+
+    /**
+     * Tells if forces and impulses are used as given (not multiplied by the mass)
+     *
+     * @return The raw forces setting
+     */
+    public boolean isRawForces() {
+        return rawForces;
+    }
+
+    /**
+     * Get the interpolation factor used in the last update (1 in variable step mode)
+     *
+     * @return Leftover time / fixed step, from 0 to 1
+     */
+    public float getAlpha() {
+        return alpha;
+    }
+
     /**
      * Set debug mode in the simulation, it shows body shapes, AABB centers and centroids
      */
@@ -216,39 +545,56 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newBall(String type, float x, float y, float r) {
+        if (recording()) {
+            recorder.spawn(TaboxRecorder.BALL, type, x, y, r);
+        }
+        resetDefs(type);
         // Scale proportions:
-        x = x / meterSize;
-        y = y / meterSize;
-        r = r / meterSize;
-
-        CircleShape circleShape;
-        BodyDef defBall = new BodyDef();
+        return createBall(x / meterSize, y / meterSize, r / meterSize);
+    }
 
-        setType(defBall, type);
+    /**
+     * Creates many Balls at once, sharing the body and fixture definitions
+     *
+     * @param type  "dynamic" or "static"
+     * @param xs    Center X of each ball
+     * @param ys    Center Y of each ball
+     * @param radii Radius of each ball
+     * @return The new Tabody instances, in the same order
+     */
+    public Tabody[] newBalls(String type, float[] xs, float[] ys, float[] radii) {
+        if (xs.length != ys.length || xs.length != radii.length) {
+            System.err.println("newBalls(), xs, ys and radii must have the same length");
+            return new Tabody[0];
+        }
+        resetDefs(type);
+        tabodies.ensureCapacity(tabodies.size() + xs.length);
+        Tabody[] balls = new Tabody[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            if (recording()) {
+                recorder.spawn(TaboxRecorder.BALL, type, xs[i], ys[i], radii[i]);
+            }
+            balls[i] = createBall(xs[i] / meterSize, ys[i] / meterSize, radii[i] / meterSize);
+        }
+        return balls;
+    }
 
-        defBall.position.set(x, y);
+    private Tabody createBall(float x, float y, float r) {
+        sharedBodyDef.position.set(x, y);
 
         Tabody ball = new Tabody();
-        ball.body = world.createBody(defBall);
-        circleShape = new CircleShape();
-        circleShape.setRadius(r);
-
-        FixtureDef fixtureBall = new FixtureDef();
-        fixtureBall.shape = circleShape;
-        fixtureBall.density = 1;
-        fixtureBall.friction = 1;
-        fixtureBall.restitution = 0;
+        ball.body = world.createBody(sharedBodyDef);
+        sharedCircle.setRadius(r);
+        sharedFixtureDef.shape = sharedCircle;
 
         ////////////////////////////////////////
         ball.w = r * 2 * meterSize;
         ball.h = r * 2 * meterSize;
-        ball.fixture = fixtureBall;
         ball.bodyType = "ball";
         ////////////////////////////////////////
 
-        ball.body.createFixture(fixtureBall);
-        circleShape.dispose();
-        tabodies.add(ball);
+        ball.body.createFixture(sharedFixtureDef);
+        track(ball);
         return ball;
     }
 
@@ -269,40 +615,57 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newBox(String type, float x, float y, float w, float h) {
+        if (recording()) {
+            recorder.spawn(TaboxRecorder.BOX, type, x, y, w, h);
+        }
+        resetDefs(type);
         // Scale proportions:
-        x = x / meterSize;
-        y = y / meterSize;
-        w = w / meterSize;
-        h = h / meterSize;
-
-        PolygonShape polygonShape;
-        BodyDef defBox = new BodyDef();
+        return createBox(x / meterSize, y / meterSize, w / meterSize, h / meterSize);
+    }
 
-        setType(defBox, type);
+    /**
+     * Creates many Boxes at once, sharing the body and fixture definitions
+     *
+     * @param type "dynamic" or "static"
+     * @param xs   Left-bottom corner X of each box
+     * @param ys   Left-bottom corner Y of each box
+     * @param ws   Width of each box
+     * @param hs   Height of each box
+     * @return The new Tabody instances, in the same order
+     */
+    public Tabody[] newBoxes(String type, float[] xs, float[] ys, float[] ws, float[] hs) {
+        if (xs.length != ys.length || xs.length != ws.length || xs.length != hs.length) {
+            System.err.println("newBoxes(), xs, ys, ws and hs must have the same length");
+            return new Tabody[0];
+        }
+        resetDefs(type);
+        tabodies.ensureCapacity(tabodies.size() + xs.length);
+        Tabody[] boxes = new Tabody[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            if (recording()) {
+                recorder.spawn(TaboxRecorder.BOX, type, xs[i], ys[i], ws[i], hs[i]);
+            }
+            boxes[i] = createBox(xs[i] / meterSize, ys[i] / meterSize, ws[i] / meterSize, hs[i] / meterSize);
+        }
+        return boxes;
+    }
 
-        defBox.position.set(x + w / 2, y + h / 2);
+    private Tabody createBox(float x, float y, float w, float h) {
+        sharedBodyDef.position.set(x + w / 2, y + h / 2);
 
         Tabody box = new Tabody();
-        box.body = world.createBody(defBox);
-        polygonShape = new PolygonShape();
-        polygonShape.setAsBox(w / 2, h / 2);
-
-        FixtureDef fixtureBox = new FixtureDef();
-        fixtureBox.shape = polygonShape;
-        fixtureBox.density = 1;
-        fixtureBox.friction = 1;
-        fixtureBox.restitution = 0;
+        box.body = world.createBody(sharedBodyDef);
+        sharedPolygon.setAsBox(w / 2, h / 2);
+        sharedFixtureDef.shape = sharedPolygon;
 
         ////////////////////////////////////////
         box.w = w * meterSize;
         box.h = h * meterSize;
-        box.fixture = fixtureBox;
         box.bodyType = "box";
         ////////////////////////////////////////
 
-        box.body.createFixture(fixtureBox);
-        polygonShape.dispose();
-        tabodies.add(box);
+        box.body.createFixture(sharedFixtureDef);
+        track(box);
         return box;
     }
 
@@ -322,7 +685,7 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newTriangle(String type, float x, float y, float radius) {
-        return generateRegularPoly("triangle", type, x, y, radius);
+        return newRegularPoly(type, 3, x, y, radius);
     }
 
     /**
@@ -335,7 +698,7 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newSquare(String type, float x, float y, float size) {
-        return generateRegularPoly("square", type, x, y, size);
+        return newRegularPoly(type, 4, x, y, size);
     }
 
     /**
@@ -348,7 +711,7 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newPentagon(String type, float x, float y, float radius) {
-        return generateRegularPoly("pentagon", type, x, y, radius);
+        return newRegularPoly(type, 5, x, y, radius);
     }
 
     /**
@@ -361,7 +724,7 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newHexagon(String type, float x, float y, float radius) {
-        return generateRegularPoly("hexagon", type, x, y, radius);
+        return newRegularPoly(type, 6, x, y, radius);
     }
 
     /**
@@ -374,7 +737,7 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newHeptagon(String type, float x, float y, float radius) {
-        return generateRegularPoly("heptagon", type, x, y, radius);
+        return newRegularPoly(type, 7, x, y, radius);
     }
 
     /**
@@ -387,94 +750,141 @@ public class Tabox2D {
      * @return A new Tabody instance
      */
     public Tabody newOctagon(String type, float x, float y, float radius) {
-        return generateRegularPoly("octagon", type, x, y, radius);
+        return newRegularPoly(type, 8, x, y, radius);
+    }
+
+    /**
+     * Creates a regular polygon with centroid = center
+     *
+     * @param type   "dynamic" or "static"
+     * @param sides  Number of sides, 3 to MAX_POLYGON_VERTICES
+     * @param x      X Center of the regular polygon
+     * @param y      Y Center of the regular polygon
+     * @param radius Radius of the polygon
+     * @return A new Tabody instance
+     */
+    public Tabody newRegularPoly(String type, int sides, float x, float y, float radius) {
+        if (sides < 3 || sides > MAX_POLYGON_VERTICES) {
+            System.err.println("newRegularPoly(), sides must be from 3 to " + MAX_POLYGON_VERTICES);
+            return null;
+        }
+        if (recording()) {
+            recorder.spawn(TaboxRecorder.REGULAR_POLY, type, sides, x, y, radius);
+        }
+        resetDefs(type);
+        return generateRegularPoly(sides, x, y, radius);
+    }
+
+    /**
+     * Creates many regular polygons at once, sharing the body and fixture definitions
+     *
+     * @param type  "dynamic" or "static"
+     * @param sides Number of sides, 3 to MAX_POLYGON_VERTICES
+     * @param xs    X Center of each polygon
+     * @param ys    Y Center of each polygon
+     * @param radii Radius of each polygon
+     * @return The new Tabody instances, in the same order
+     */
+    public Tabody[] newRegularPolys(String type, int sides, float[] xs, float[] ys, float[] radii) {
+        if (sides < 3 || sides > MAX_POLYGON_VERTICES) {
+            System.err.println("newRegularPolys(), sides must be from 3 to " + MAX_POLYGON_VERTICES);
+            return new Tabody[0];
+        }
+        if (xs.length != ys.length || xs.length != radii.length) {
+            System.err.println("newRegularPolys(), xs, ys and radii must have the same length");
+            return new Tabody[0];
+        }
+        resetDefs(type);
+        tabodies.ensureCapacity(tabodies.size() + xs.length);
+        Tabody[] polys = new Tabody[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            if (recording()) {
+                recorder.spawn(TaboxRecorder.REGULAR_POLY, type, sides, xs[i], ys[i], radii[i]);
+            }
+            polys[i] = generateRegularPoly(sides, xs[i], ys[i], radii[i]);
+        }
+        return polys;
     }
 
-    private Tabody generateRegularPoly(String name, String type, float x, float y, float rad) {
+    private Tabody generateRegularPoly(int sides, float x, float y, float rad) {
         // Scale proportions:
         x /= meterSize;
         y /= meterSize;
         rad /= meterSize;
 
-        PolygonShape polygonShape;
-        BodyDef defPoly = new BodyDef();
-
-        setType(defPoly, type);
-
-        // Generate points:
-        List<Vector2> pts = new ArrayList<Vector2>();
-        Vector2 p0 = new Vector2(0, rad);
-
-        float conv = MathUtils.degreesToRadians;
-        float angleInDeg = polyInfo.get(name + "_angle");
-        float cos = MathUtils.cos(conv * angleInDeg);
-        float sin = MathUtils.sin(conv * angleInDeg);
-
-        for (int i = 0; i < polyInfo.get(name); i++) {
-            pts.add(new Vector2(p0.x, p0.y));
-            p0.set(p0.x, p0.y);
-
-            float newX = p0.x * cos - p0.y * sin;
-            float newY = p0.x * sin + p0.y * cos;
-
-            p0.x = newX;
-            p0.y = newY;
-        }
-
-        // Get bounding box:
-
-        float[] rawPoints = new float[pts.size() * 2];
-        int pointIndex = 0;
-        for (int i = 0; i < rawPoints.length - 1; i += 2) {
-            rawPoints[i] = pts.get(pointIndex).x;
-            rawPoints[i + 1] = pts.get(pointIndex).y;
-            pointIndex++;
+        // Scale the unit shape, already centered on its AABB:
+        PolyPrototype proto = POLY_PROTOTYPES[sides];
+        int count = sides * 2;
+        for (int i = 0; i < count; i++) {
+            polyBuffer[i] = proto.vertices[i] * rad;
         }
-
-        Polygon polyForBox = new Polygon();
-        polyForBox.setVertices(rawPoints);
-
-        Rectangle boundingRect = polyForBox.getBoundingRectangle();
-        float boxX = boundingRect.x;
-        float boxY = boundingRect.y;
-        float boxW = boundingRect.getWidth();
-        float boxH = boundingRect.getHeight();
-
-        Vector2 aabbCenter = new Vector2(boxX + boxW / 2, boxY + boxH / 2);
-        defPoly.position.set(x, y);
+        sharedBodyDef.position.set(x, y);
 
         Tabody regularPoly = new Tabody();
-        regularPoly.body = world.createBody(defPoly);
-        //regularPoly.body.setFixedRotation(true);
-        polygonShape = new PolygonShape();
-
-        //polygonShape.setAsBox(w / 2, h / 2);
-        for (int i = 0; i < rawPoints.length - 1; i += 2) {
-            rawPoints[i] -= aabbCenter.x;
-            rawPoints[i + 1] -= aabbCenter.y;
-        }
-        //rawPoints[0] += 0.5;
-        polygonShape.set(rawPoints);
-
-        FixtureDef fixtureBox = new FixtureDef();
-        fixtureBox.shape = polygonShape;
-        fixtureBox.density = 1;
-        fixtureBox.friction = 1;
-        fixtureBox.restitution = 0;
+        regularPoly.body = world.createBody(sharedBodyDef);
+        sharedPolygon.set(polyBuffer, 0, count);
+        sharedFixtureDef.shape = sharedPolygon;
 
         ////////////////////////////////////////
-        regularPoly.w = boxW * meterSize;//radius * 2 * meterSize;
-        regularPoly.h = boxH * meterSize;//radius * 2 * meterSize;
-        regularPoly.fixture = fixtureBox;
+        regularPoly.w = proto.w * rad * meterSize;
+        regularPoly.h = proto.h * rad * meterSize;
         regularPoly.bodyType = "poly";
         ////////////////////////////////////////
 
-        regularPoly.body.createFixture(fixtureBox);
-        polygonShape.dispose();
-        tabodies.add(regularPoly);
+        regularPoly.body.createFixture(sharedFixtureDef);
+        track(regularPoly);
         return regularPoly;
     }
 
+    /**
+     * Max vertices per polygon fixture in Box2D
+     */
+    public static final int MAX_POLYGON_VERTICES = 8;
+
+    // Regular polygons with radius 1, indexed by number of sides:
+    private static final PolyPrototype[] POLY_PROTOTYPES = new PolyPrototype[MAX_POLYGON_VERTICES + 1];
+
+    static {
+        for (int sides = 3; sides <= MAX_POLYGON_VERTICES; sides++) {
+            POLY_PROTOTYPES[sides] = new PolyPrototype(sides);
+        }
+    }
+
+    /**
+     * A regular polygon with radius 1, the first vertex on top,
+     * translated so its AABB center is the origin
+     */
+    private static class PolyPrototype {
+        final float[] vertices;
+        final float w, h;
+
+        PolyPrototype(int sides) {
+            vertices = new float[sides * 2];
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+            float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+            for (int i = 0; i < sides; i++) {
+                // (0, 1) rotated counterclockwise by i / sides turns:
+                double angle = Math.PI * 2 * i / sides;
+                float vx = (float) -Math.sin(angle);
+                float vy = (float) Math.cos(angle);
+                vertices[i * 2] = vx;
+                vertices[i * 2 + 1] = vy;
+                minX = Math.min(minX, vx);
+                minY = Math.min(minY, vy);
+                maxX = Math.max(maxX, vx);
+                maxY = Math.max(maxY, vy);
+            }
+            float cx = (minX + maxX) / 2;
+            float cy = (minY + maxY) / 2;
+            for (int i = 0; i < vertices.length; i += 2) {
+                vertices[i] -= cx;
+                vertices[i + 1] -= cy;
+            }
+            w = maxX - minX;
+            h = maxY - minY;
+        }
+    }
+
     ///////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////
     //  Polygon creator:
@@ -482,63 +892,192 @@ public class Tabox2D {
     ///////////////////////////////////////////////////////////////
 
     /**
-     * Creates a Polygons with the given points
+     * Creates a Polygons with the given points.<br/>
+     * Concave outlines and outlines with more than MAX_POLYGON_VERTICES points are split
+     * into convex fixtures of the same body, the split of each outline is cached
      *
      * @param type "dynamic" or "static"
-     * @param pts  points for the polygon
-     * @return A new Tabody instance
+     * @param pts  points for the polygon, in order (either winding), not changed
+     * @return A new Tabody instance, null if the outline has no area
      */
     public Tabody newPoly(String type, float[] pts) {
-        // Scale proportions:
-        for (int i = 0; i < pts.length; i++) {
-            pts[i] /= meterSize;
-        }
-
-        PolygonShape polygonShape;
-        BodyDef defPoly = new BodyDef();
+        return newPoly(type, pts, simplifyTolerance);
+    }
 
-        setType(defPoly, type);
+    /**
+     * Like newPoly(), but simplifies the outline with the given tolerance instead of the one
+     * set by setSimplify(), e.g. coarser hulls for debris
+     *
+     * @param type      "dynamic" or "static"
+     * @param pts       points for the polygon, in order (either winding), not changed
+     * @param tolerance Max distance in pixels from a removed point to the new outline, 0 = none
+     * @return A new Tabody instance
+     */
+    public Tabody newPoly(String type, float[] pts, float tolerance) {
+        return newPoly(type, pts, tolerance, simplifyCollinear, simplifyAreaError);
+    }
 
+    Tabody newPoly(String type, float[] pts, float tolerance, float collinear, float areaError) {
+        if (pts.length < 6) {
+            System.err.println("newPoly(), at least 3 points are needed");
+            return null;
+        }
         // Get bounding box:
-
-        Polygon polyForBox = new Polygon();
-        polyForBox.setVertices(pts);
-
-        //polyForBox.translate(center.x, center.y);
-
-        Rectangle boundingRect = boundingBoxOf(polyForBox.getVertices());
-        Vector2 aabbCenter = new Vector2(boundingRect.x + boundingRect.width / 2, boundingRect.y + boundingRect.height / 2);
-        defPoly.position.set(aabbCenter.x, aabbCenter.y);
-
-        Tabody regularPoly = new Tabody();
-        regularPoly.body = world.createBody(defPoly);
-        polygonShape = new PolygonShape();
-
-        for (int i = 0; i < pts.length - 1; i += 2) {
-            pts[i] -= aabbCenter.x;
-            pts[i + 1] -= aabbCenter.y;
+        Rectangle boundingRect = boundingBoxOf(pts);
+        float centerX = (boundingRect.x + boundingRect.width / 2) / meterSize;
+        float centerY = (boundingRect.y + boundingRect.height / 2) / meterSize;
+        int[][] pieces = decomposition(pts, tolerance, collinear, areaError);
+        int solidPieces = 0;
+        for (int[] piece : pieces) {
+            if (loadPiece(pts, piece, centerX, centerY)) {
+                solidPieces++;
+            }
+        }
+        if (solidPieces == 0) {
+            System.err.println("newPoly(), the outline is too thin to make a body");
+            return null;
+        }
+        if (recording()) {
+            recorder.poly(type, pts, tolerance, collinear, areaError);
         }
-        polygonShape.set(pts);
+        resetDefs(type);
+        sharedBodyDef.position.set(centerX, centerY);
 
-        FixtureDef fixtureBox = new FixtureDef();
-        fixtureBox.shape = polygonShape;
-        fixtureBox.density = 1;
-        fixtureBox.friction = 1;
-        fixtureBox.restitution = 0;
+        Tabody regularPoly = new Tabody();
+        regularPoly.body = world.createBody(sharedBodyDef);
 
         ////////////////////////////////////////
-        regularPoly.w = boundingRect.width * meterSize;//radius * 2 * meterSize;
-        regularPoly.h = boundingRect.height * meterSize;//radius * 2 * meterSize;
-        regularPoly.fixture = fixtureBox;
+        regularPoly.w = boundingRect.width;
+        regularPoly.h = boundingRect.height;
         regularPoly.bodyType = "poly";
         ////////////////////////////////////////
 
-        regularPoly.body.createFixture(fixtureBox);
-        polygonShape.dispose();
-        tabodies.add(regularPoly);
+        regularPoly.sourceVertices = pts.length / 2;
+        for (int[] piece : pieces) {
+            if (loadPiece(pts, piece, centerX, centerY)) {
+                sharedPolygon.set(polyBuffer, 0, piece.length * 2);
+                sharedFixtureDef.shape = sharedPolygon;
+                regularPoly.body.createFixture(sharedFixtureDef);
+            }
+        }
+        track(regularPoly);
         return regularPoly;
     }
 
+    /**
+     * Copies a convex piece into polyBuffer, in meters relative to the body center
+     *
+     * @return false if the piece is too small for Box2D
+     */
+    private boolean loadPiece(float[] pts, int[] piece, float centerX, float centerY) {
+        for (int i = 0; i < piece.length; i++) {
+            polyBuffer[i * 2] = pts[piece[i] * 2] / meterSize - centerX;
+            polyBuffer[i * 2 + 1] = pts[piece[i] * 2 + 1] / meterSize - centerY;
+        }
+        return isSolidPiece(polyBuffer, piece.length);
+    }
+
+    /**
+     * Set the max number of outlines whose convex split is kept by newPoly()
+     *
+     * @param size Max outlines (256 by default), 0 disables the cache
+     */
+    public void setPolyCacheSize(int size) {
+        this.polyCacheSize = size;
+        polyCache.clear();
+    }
+
+    /**
+     * Sets the outline simplification of newPoly() and combine(), off by default.<br/>
+     * Traced outlines often have more points than collisions need, and each one costs in
+     * every contact test. Bodies made before this call keep their shapes
+     *
+     * @param tolerance        Max distance in pixels from a removed point to the new outline, 0 = none
+     * @param collinearDegrees Points whose edges turn less than this are removed, 0 = none
+     * @param maxAreaError     Max relative area change (0.05 by default), the simplification
+     *                         is made finer until the area is within it
+     */
+    public void setSimplify(float tolerance, float collinearDegrees, float maxAreaError) {
+        simplifyTolerance = Math.max(0, tolerance);
+        simplifyCollinear = Math.max(0, collinearDegrees);
+        simplifyAreaError = Math.max(0, maxAreaError);
+    }
+
+    /**
+     * Get the convex pieces of an outline, simplified first if asked,
+     * from the cache if it was split before
+     */
+    int[][] decomposition(float[] pts, float tolerance, float collinear, float areaError) {
+        TaboxGeometry.OutlineKey key = null;
+        if (polyCacheSize > 0) {
+            key = new TaboxGeometry.OutlineKey(pts, tolerance, collinear, areaError);
+            int[][] pieces = polyCache.get(key);
+            if (pieces != null) {
+                return pieces;
+            }
+        }
+        int[] kept = simplified(pts, tolerance, collinear, areaError);
+        int[][] pieces;
+        if (kept == null) {
+            pieces = TaboxGeometry.decompose(pts, MAX_POLYGON_VERTICES);
+        } else {
+            float[] outline = new float[kept.length * 2];
+            for (int i = 0; i < kept.length; i++) {
+                outline[i * 2] = pts[kept[i] * 2];
+                outline[i * 2 + 1] = pts[kept[i] * 2 + 1];
+            }
+            pieces = TaboxGeometry.decompose(outline, MAX_POLYGON_VERTICES);
+            // Back to indices of the given points:
+            for (int[] piece : pieces) {
+                for (int i = 0; i < piece.length; i++) {
+                    piece[i] = kept[piece[i]];
+                }
+            }
+        }
+        if (key != null) {
+            polyCache.put(key, pieces);
+        }
+        return pieces;
+    }
+
+    /**
+     * Simplifies an outline, the tolerance is in the units of the points
+     *
+     * @return Indices of the kept points, null if all of them are kept
+     */
+    private int[] simplified(float[] pts, float tolerance, float collinear, float areaError) {
+        if (tolerance <= 0 && collinear <= 0) {
+            return null;
+        }
+        int[] kept = TaboxGeometry.simplify(pts, tolerance, collinear, areaError);
+        return kept.length == pts.length / 2 ? null : kept;
+    }
+
+    /**
+     * Tells if Box2D can make a polygon of the given vertices: at least 3 of them farther
+     * apart than its weld distance, and not collinear (Box2D would use a 1x1 box instead)
+     */
+    static boolean isSolidPiece(float[] vertices, int count) {
+        float weld = 0.0025f * 0.0025f;// (b2_linearSlop / 2)^2
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            boolean unique = true;
+            for (int j = 0; j < i && unique; j++) {
+                float dx = vertices[i * 2] - vertices[j * 2];
+                float dy = vertices[i * 2 + 1] - vertices[j * 2 + 1];
+                unique = dx * dx + dy * dy > weld;
+            }
+            if (unique) {
+                distinct++;
+            }
+        }
+        float area = 0;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            area += vertices[j * 2] * vertices[i * 2 + 1] - vertices[i * 2] * vertices[j * 2 + 1];
+        }
+        return distinct >= 3 && Math.abs(area / 2) > weld;
+    }
+
     /**
      * Combines different tabodies in a single one.<br/>
      * This is useful to have a body with different fixtures in an easy way
@@ -547,7 +1086,27 @@ public class Tabox2D {
      * @return A new Tabody
      */
     public Tabody combine(String type, Tabody... tabodyArray) {
+        return combine(type, simplifyTolerance, tabodyArray);
+    }
+
+    /**
+     * Like combine(), but simplifies the polygons with the given tolerance instead of the one
+     * set by setSimplify()
+     *
+     * @param tolerance   Max distance in pixels from a removed point to the new outline, 0 = none
+     * @param tabodyArray Array of tabodies to combine
+     * @return A new Tabody
+     */
+    public Tabody combine(String type, float tolerance, Tabody... tabodyArray) {
+        return combine(type, tolerance, simplifyCollinear, simplifyAreaError, tabodyArray);
+    }
+
+    Tabody combine(String type, float tolerance, float collinear, float areaError, Tabody[] tabodyArray) {
         if (tabodyArray.length > 0) {
+            if (recording()) {
+                recorder.combine(type, tabodyArray, tolerance, collinear, areaError);
+            }
+            recorderMute++;// The parts are destroyed here, not by the caller.
 
             Tabody newTabody = new Tabody();
 
@@ -595,6 +1154,9 @@ public class Tabox2D {
             newTabody.w = rectangle.width * meterSize;
             newTabody.h = rectangle.height * meterSize;
             newTabody.body = world.createBody(bodyDef);
+            for (int i = 0; i < tabodyArray.length; i++) {
+                newTabody.sourceVertices += tabodyArray[i].getSourceVertexCount();
+            }
 
             for (int i = 0; i < tabodyArray.length; i++) {
 
@@ -611,9 +1173,12 @@ public class Tabox2D {
                     float dy = t.body.getWorldCenter().y - bodyDef.position.y;
                     if (f.getShape() instanceof CircleShape) {
 
+                        // Copied, the shape of the part isn't changed:
                         CircleShape circleShape = (CircleShape) f.getShape();
-                        circleShape.setPosition(new Vector2(circleShape.getPosition().x + dx, circleShape.getPosition().y + dy));
-                        fixtureDef.shape = circleShape;
+                        sharedCircle.setRadius(circleShape.getRadius());
+                        snapshotVertex.set(circleShape.getPosition().x + dx, circleShape.getPosition().y + dy);
+                        sharedCircle.setPosition(snapshotVertex);
+                        fixtureDef.shape = sharedCircle;
                     } else if (f.getShape() instanceof PolygonShape) {
 
                         PolygonShape polygonShape = (PolygonShape) f.getShape();
@@ -630,8 +1195,17 @@ public class Tabox2D {
                             pts[j + 1] = tmp.y + dy;
                             vertexIndex++;
                         }
-                        polygonShape.set(pts);
-                        fixtureDef.shape = polygonShape;
+                        int[] kept = simplified(pts, tolerance / meterSize, collinear, areaError);
+                        if (kept != null) {
+                            float[] simple = new float[kept.length * 2];
+                            for (int j = 0; j < kept.length; j++) {
+                                simple[j * 2] = pts[kept[j] * 2];
+                                simple[j * 2 + 1] = pts[kept[j] * 2 + 1];
+                            }
+                            pts = simple;
+                        }
+                        sharedPolygon.set(pts);
+                        fixtureDef.shape = sharedPolygon;
                     } else if (f.getShape() instanceof EdgeShape) {
                         EdgeShape edgeShape = (EdgeShape) f.getShape();
                         fixtureDef.shape = edgeShape;
@@ -640,15 +1214,17 @@ public class Tabox2D {
                     newTabody.body.createFixture(fixtureDef);
                 }
             }
+            snapshotVertex.set(0, 0);
+            sharedCircle.setPosition(snapshotVertex);
 
             // Destroy:
             for (int i = 0; i < tabodyArray.length; i++) {
-                world.destroyBody(tabodyArray[i].body);
-                tabodies.remove(tabodyArray[i]);
+                destroy(tabodyArray[i]);
             }
 
             // Add new Tabody:
-            tabodies.add(newTabody);
+            track(newTabody);
+            recorderMute--;
             return newTabody;
         } else {
             System.err.println("No tabodies specified in Tabox2D.combine()");
@@ -656,90 +1232,2315 @@ public class Tabox2D {
         }
     }
 
+    /**
+     * Creates a body with every shape of a compound template, one fixture per shape
+     * (polygons may need more, see newPoly()).<br/>
+     * Unlike combine(), no temporary bodies are made. The template is converted to meters
+     * on its first spawn, the next spawns reuse it
+     *
+     * @param type     "dynamic" or "static"
+     * @param compound The shapes, in pixels relative to (x, y)
+     * @param x        Spawn point X
+     * @param y        Spawn point Y
+     * @return A new Tabody instance
+     */
+    public Tabody newCompound(String type, TaboxCompound compound, float x, float y) {
+        return newCompound(type, compound, x, y, simplifyTolerance, simplifyCollinear, simplifyAreaError);
+    }
+
+    Tabody newCompound(String type, TaboxCompound compound, float x, float y,
+                       float tolerance, float collinear, float areaError) {
+        if (compound.getShapeCount() == 0) {
+            System.err.println("newCompound(), the compound has no shapes");
+            return null;
+        }
+        TaboxCompound.Baked baked = compound.bake(this, tolerance, collinear, areaError);
+        if (baked.shapes.isEmpty()) {
+            System.err.println("newCompound(), every shape is too thin to make a body");
+            return null;
+        }
+        if (recording()) {
+            recorder.compound(type, compound, x, y, tolerance, collinear, areaError);
+        }
+        resetDefs(type);
+        sharedBodyDef.position.set(x / meterSize + baked.centerX, y / meterSize + baked.centerY);
+
+        Tabody compoundBody = new Tabody();
+        compoundBody.body = world.createBody(sharedBodyDef);
+        for (int i = 0; i < baked.shapes.size(); i++) {
+            float[] shape = baked.shapes.get(i);
+            sharedFixtureDef.density = baked.materials[i * 3];
+            sharedFixtureDef.friction = baked.materials[i * 3 + 1];
+            sharedFixtureDef.restitution = baked.materials[i * 3 + 2];
+            if (baked.kinds[i] == SHAPE_CIRCLE) {
+                sharedCircle.setRadius(shape[2]);
+                snapshotVertex.set(shape[0], shape[1]);
+                sharedCircle.setPosition(snapshotVertex);
+                sharedFixtureDef.shape = sharedCircle;
+            } else {
+                sharedPolygon.set(shape);
+                sharedFixtureDef.shape = sharedPolygon;
+            }
+            compoundBody.body.createFixture(sharedFixtureDef);
+        }
+        snapshotVertex.set(0, 0);
+        sharedCircle.setPosition(snapshotVertex);
+
+        ////////////////////////////////////////
+        compoundBody.w = baked.w;
+        compoundBody.h = baked.h;
+        compoundBody.sourceVertices = baked.sourceVertices;
+        ////////////////////////////////////////
+
+        track(compoundBody);
+        return compoundBody;
+    }
+
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+    //  Pools:
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+
+    /**
+     * Set the max number of free Tabodies kept for each shape, the extra ones are destroyed
+     *
+     * @param size Max Tabodies per shape (256 by default)
+     */
+    public void setPoolSize(int size) {
+        this.poolSize = size;
+    }
+
+    /**
+     * Like newBall(), but reuses a freed Ball with the same type and radius if there is one
+     *
+     * @param type "dynamic" or "static"
+     * @param x    Center X of the ball
+     * @param y    Center Y of the ball
+     * @param r    Radius
+     * @return A Tabody instance, release it with free()
+     */
+    public Tabody obtainBall(String type, float x, float y, float r) {
+        if (recording()) {
+            recorder.spawn(TaboxRecorder.OBTAIN_BALL, type, x, y, r);
+        }
+        resetDefs(type);
+        Tabody ball = reuse(POOL_BALL, r / meterSize, 0, x / meterSize, y / meterSize);
+        if (ball == null) {
+            ball = createBall(x / meterSize, y / meterSize, r / meterSize);
+            ball.poolKey = new PoolKey(POOL_BALL, sharedBodyDef.type, r / meterSize, 0);
+        }
+        return ball;
+    }
+
+    /**
+     * Like newBox(), but reuses a freed Box with the same type and size if there is one
+     *
+     * @param type "dynamic" or "static"
+     * @param x    Left-bottom corner X of the box
+     * @param y    Left-bottom corner Y of the box
+     * @param w    Width of the box
+     * @param h    Height of the box
+     * @return A Tabody instance, release it with free()
+     */
+    public Tabody obtainBox(String type, float x, float y, float w, float h) {
+        if (recording()) {
+            recorder.spawn(TaboxRecorder.OBTAIN_BOX, type, x, y, w, h);
+        }
+        resetDefs(type);
+        x /= meterSize;
+        y /= meterSize;
+        w /= meterSize;
+        h /= meterSize;
+        Tabody box = reuse(POOL_BOX, w, h, x + w / 2, y + h / 2);
+        if (box == null) {
+            box = createBox(x, y, w, h);
+            box.poolKey = new PoolKey(POOL_BOX, sharedBodyDef.type, w, h);
+        }
+        return box;
+    }
+
+    /**
+     * Like newRegularPoly(), but reuses a freed polygon with the same type, sides and radius if there is one
+     *
+     * @param type   "dynamic" or "static"
+     * @param sides  Number of sides, 3 to MAX_POLYGON_VERTICES
+     * @param x      X Center of the regular polygon
+     * @param y      Y Center of the regular polygon
+     * @param radius Radius of the polygon
+     * @return A Tabody instance, release it with free()
+     */
+    public Tabody obtainRegularPoly(String type, int sides, float x, float y, float radius) {
+        if (sides < 3 || sides > MAX_POLYGON_VERTICES) {
+            System.err.println("obtainRegularPoly(), sides must be from 3 to " + MAX_POLYGON_VERTICES);
+            return null;
+        }
+        if (recording()) {
+            recorder.spawn(TaboxRecorder.OBTAIN_REGULAR_POLY, type, sides, x, y, radius);
+        }
+        resetDefs(type);
+        Tabody poly = reuse(POOL_POLY, radius / meterSize, sides, x / meterSize, y / meterSize);
+        if (poly == null) {
+            poly = generateRegularPoly(sides, x, y, radius);
+            poly.poolKey = new PoolKey(POOL_POLY, sharedBodyDef.type, radius / meterSize, sides);
+        }
+        return poly;
+    }
+
+    /**
+     * Creates free Balls ahead of time, so obtainBall() doesn't allocate later
+     *
+     * @param type  "dynamic" or "static"
+     * @param r     Radius
+     * @param count Number of Balls
+     */
+    public void prewarmBalls(String type, float r, int count) {
+        if (recording()) {
+            recorder.prewarm(TaboxRecorder.PREWARM_BALLS, type, 0, r, 0, count);
+        }
+        recorderMute++;
+        for (int i = 0; i < count; i++) {
+            resetDefs(type);
+            Tabody ball = createBall(0, 0, r / meterSize);
+            ball.poolKey = new PoolKey(POOL_BALL, sharedBodyDef.type, r / meterSize, 0);
+            free(ball);
+        }
+        recorderMute--;
+    }
+
+    /**
+     * Creates free Boxes ahead of time, so obtainBox() doesn't allocate later
+     *
+     * @param type  "dynamic" or "static"
+     * @param w     Width of the box
+     * @param h     Height of the box
+     * @param count Number of Boxes
+     */
+    public void prewarmBoxes(String type, float w, float h, int count) {
+        if (recording()) {
+            recorder.prewarm(TaboxRecorder.PREWARM_BOXES, type, 0, w, h, count);
+        }
+        recorderMute++;
+        for (int i = 0; i < count; i++) {
+            resetDefs(type);
+            Tabody box = createBox(0, 0, w / meterSize, h / meterSize);
+            box.poolKey = new PoolKey(POOL_BOX, sharedBodyDef.type, w / meterSize, h / meterSize);
+            free(box);
+        }
+        recorderMute--;
+    }
+
+    /**
+     * Creates free regular polygons ahead of time, so obtainRegularPoly() doesn't allocate later
+     *
+     * @param type   "dynamic" or "static"
+     * @param sides  Number of sides, 3 to MAX_POLYGON_VERTICES
+     * @param radius Radius of the polygon
+     * @param count  Number of polygons
+     */
+    public void prewarmRegularPolys(String type, int sides, float radius, int count) {
+        if (sides < 3 || sides > MAX_POLYGON_VERTICES) {
+            System.err.println("prewarmRegularPolys(), sides must be from 3 to " + MAX_POLYGON_VERTICES);
+            return;
+        }
+        if (recording()) {
+            recorder.prewarm(TaboxRecorder.PREWARM_REGULAR_POLYS, type, sides, radius, 0, count);
+        }
+        recorderMute++;
+        for (int i = 0; i < count; i++) {
+            resetDefs(type);
+            Tabody poly = generateRegularPoly(sides, 0, 0, radius);
+            poly.poolKey = new PoolKey(POOL_POLY, sharedBodyDef.type, radius / meterSize, sides);
+            free(poly);
+        }
+        recorderMute--;
+    }
+
+    /**
+     * Returns a Tabody made by obtainX() to its pool: the body is deactivated
+     * (no collisions, no cost in the step) and the Tabody leaves getTabodies().
+     * Other Tabodies, or a full pool, are destroyed instead
+     *
+     * @param tabody Tabody object to release
+     */
+    public void free(Tabody tabody) {
+        if (!owns(tabody)) {
+            return;
+        }
+        if (recording()) {
+            recorder.op(TaboxRecorder.FREE, tabody);
+        }
+        recorderMute++;
+        release(tabody);
+        recorderMute--;
+    }
+
+    /**
+     * Pools or destroys the given Tabody, without recording it
+     *
+     * @param tabody Tabody object to release
+     */
+    private void release(Tabody tabody) {
+        if (tabody.poolKey == null) {
+            destroy(tabody);
+            return;
+        }
+        if (world.isLocked()) {
+            // Called from a Box2D callback, inside world.step():
+            tabody.queuedFree = true;
+            destroyLater(tabody);
+            return;
+        }
+        List<Tabody> pool = pools.get(tabody.poolKey);
+        if (pool == null) {
+            pool = new ArrayList<Tabody>();
+            pools.put(tabody.poolKey, pool);
+        }
+        if (pool.size() >= poolSize) {
+            destroy(tabody);
+            return;
+        }
+        if (tabody.queued) {
+            // Pooled before the flush, it must not be destroyed once reused:
+            destroyQueue.remove(tabody);
+            tabody.queued = false;
+            tabody.queuedFree = false;
+        }
+        tabody.body.setActive(false);
+        tabody.force(0, 0);
+        untrack(tabody);
+        pool.add(tabody);
+        pooled++;
+    }
+
+    /**
+     * Destroys all the free Tabodies kept in the pools
+     */
+    public void clearPools() {
+        for (List<Tabody> pool : pools.values()) {
+            for (Tabody t : pool) {
+                world.destroyBody(t.body);
+                releaseTexture(t);
+            }
+        }
+        pools.clear();
+        pooled = 0;
+    }
+
+    /**
+     * Get the number of obtainX() calls that reused a free Tabody
+     *
+     * @return Pool hits
+     */
+    public int getPoolHits() {
+        return poolHits;
+    }
+
+    /**
+     * Get the number of obtainX() calls that had to create a new Tabody
+     *
+     * @return Pool misses
+     */
+    public int getPoolMisses() {
+        return poolMisses;
+    }
+
+    /**
+     * Get the number of free Tabodies waiting in the pools
+     *
+     * @return Pooled Tabodies
+     */
+    public int getPooledCount() {
+        return pooled;
+    }
+
+    /**
+     * Takes a free Tabody with the given shape and moves it to the given position
+     *
+     * @return The reactivated Tabody, null on a miss
+     */
+    private Tabody reuse(int shape, float a, float b, float x, float y) {
+        scratchKey.set(shape, sharedBodyDef.type, a, b);
+        List<Tabody> pool = pools.get(scratchKey);
+        if (pool == null || pool.isEmpty()) {
+            poolMisses++;
+            return null;
+        }
+        poolHits++;
+        pooled--;
+        Tabody t = pool.remove(pool.size() - 1);
+        if (t.tuned) {
+            for (Fixture f : t.body.getFixtureList()) {
+                f.setDensity(sharedFixtureDef.density);
+                f.setFriction(sharedFixtureDef.friction);
+                f.setRestitution(sharedFixtureDef.restitution);
+            }
+            t.body.resetMassData();
+            t.tuned = false;
+        }
+        // Back to what a new Tabody gets:
+        t.contactBits = 1;
+        t.contactMask = -1;
+        t.body.setLinearDamping(sharedBodyDef.linearDamping);
+        t.body.setAngularDamping(sharedBodyDef.angularDamping);
+        t.body.setGravityScale(sharedBodyDef.gravityScale);
+        t.body.setFixedRotation(sharedBodyDef.fixedRotation);
+        t.body.setTransform(x, y, 0);
+        t.body.setLinearVelocity(0, 0);
+        t.body.setAngularVelocity(0);
+        t.body.setActive(true);
+        t.body.setAwake(true);
+        track(t);
+        return t;
+    }
+
+    private static final int POOL_BALL = 0, POOL_BOX = 1, POOL_POLY = 2;
+
+    /**
+     * Identifies interchangeable Tabodies: shape, body type and size (in meters)
+     */
+    private static class PoolKey {
+        int shape;
+        BodyDef.BodyType type;
+        float a, b;
+
+        PoolKey() {
+        }
+
+        PoolKey(int shape, BodyDef.BodyType type, float a, float b) {
+            set(shape, type, a, b);
+        }
+
+        void set(int shape, BodyDef.BodyType type, float a, float b) {
+            this.shape = shape;
+            this.type = type;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey k = (PoolKey) o;
+            return shape == k.shape && type == k.type && a == k.a && b == k.b;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = shape;
+            h = h * 31 + type.ordinal();
+            h = h * 31 + Float.floatToIntBits(a);
+            return h * 31 + Float.floatToIntBits(b);
+        }
+    }
+
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+    //  Queries:
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+
+    /**
+     * Finds the Tabodies whose fixtures' AABB overlap the given box (Box2D broadphase)
+     *
+     * @param x   Left-bottom corner X of the box
+     * @param y   Left-bottom corner Y of the box
+     * @param w   Width of the box
+     * @param h   Height of the box
+     * @param out Array for the results, the query stops when it's full
+     * @return Number of Tabodies written in out
+     */
+    public int queryAABB(float x, float y, float w, float h, Tabody[] out) {
+        beginQuery(out);
+        world.QueryAABB(aabbCallback, x / meterSize, y / meterSize, (x + w) / meterSize, (y + h) / meterSize);
+        return endQuery();
+    }
+
+    /**
+     * Finds the Tabodies that contain the given point
+     *
+     * @param x   X of the point
+     * @param y   Y of the point
+     * @param out Array for the results, the query stops when it's full
+     * @return Number of Tabodies written in out
+     */
+    public int queryPoint(float x, float y, Tabody[] out) {
+        beginQuery(out);
+        queryX = x / meterSize;
+        queryY = y / meterSize;
+        float e = 0.001f;
+        world.QueryAABB(pointCallback, queryX - e, queryY - e, queryX + e, queryY + e);
+        return endQuery();
+    }
+
+    /**
+     * Finds the first Tabody hit by the segment from (x1, y1) to (x2, y2).<br/>
+     * The hit point and normal are available through getRayHitX() and the like
+     *
+     * @param x1 Start X
+     * @param y1 Start Y
+     * @param x2 End X
+     * @param y2 End Y
+     * @return The closest Tabody, null if nothing was hit
+     */
+    public Tabody rayCast(float x1, float y1, float x2, float y2) {
+        rayHit = null;
+        rayFraction = 1;
+        if (x1 != x2 || y1 != y2) {// Box2D asserts on zero length rays.
+            world.rayCast(closestRayCallback, x1 / meterSize, y1 / meterSize, x2 / meterSize, y2 / meterSize);
+        }
+        return rayHit;
+    }
+
+    /**
+     * Finds every Tabody hit by the segment from (x1, y1) to (x2, y2), nearest first
+     *
+     * @param x1  Start X
+     * @param y1  Start Y
+     * @param x2  End X
+     * @param y2  End Y
+     * @param out Array for the results, the query stops when it's full
+     * @return Number of Tabodies written in out
+     */
+    public int rayCastAll(float x1, float y1, float x2, float y2, Tabody[] out) {
+        beginQuery(out);
+        if (x1 != x2 || y1 != y2) {
+            world.rayCast(allRayCallback, x1 / meterSize, y1 / meterSize, x2 / meterSize, y2 / meterSize);
+        }
+        // Insertion sort by fraction, results are few:
+        for (int i = 1; i < queryCount; i++) {
+            Tabody t = out[i];
+            float f = queryFractions[i];
+            int j = i - 1;
+            while (j >= 0 && queryFractions[j] > f) {
+                out[j + 1] = out[j];
+                queryFractions[j + 1] = queryFractions[j];
+                j--;
+            }
+            out[j + 1] = t;
+            queryFractions[j + 1] = f;
+        }
+        return endQuery();
+    }
+
+    /**
+     * Get the X of the hit point of the last rayCast()
+     *
+     * @return X in pixels
+     */
+    public float getRayHitX() {
+        return rayHitX * meterSize;
+    }
+
+    /**
+     * Get the Y of the hit point of the last rayCast()
+     *
+     * @return Y in pixels
+     */
+    public float getRayHitY() {
+        return rayHitY * meterSize;
+    }
+
+    /**
+     * Get the X of the surface normal at the hit point of the last rayCast()
+     *
+     * @return Normal X (unit vector)
+     */
+    public float getRayNormalX() {
+        return rayNormalX;
+    }
+
+    /**
+     * Get the Y of the surface normal at the hit point of the last rayCast()
+     *
+     * @return Normal Y (unit vector)
+     */
+    public float getRayNormalY() {
+        return rayNormalY;
+    }
+
+    /**
+     * Get the fraction of the segment where the last rayCast() hit
+     *
+     * @return From 0 (start) to 1 (end)
+     */
+    public float getRayFraction() {
+        return rayFraction;
+    }
+
+    private void beginQuery(Tabody[] out) {
+        if (queryFractions.length < out.length) {
+            queryFractions = new float[out.length];
+        }
+        queryOut = out;
+        queryCount = 0;
+        queryStamp++;
+    }
+
+    private int endQuery() {
+        queryOut = null;
+        return queryCount;
+    }
+
+    /**
+     * Adds the Tabody of the given fixture to the results, once per query
+     *
+     * @return false when the results array is full
+     */
+    private boolean addResult(Fixture fixture, float fraction) {
+        Tabody t = (Tabody) fixture.getBody().getUserData();
+        if (t == null) {
+            return true;
+        }
+        if (t.queryStamp == queryStamp) {
+            // Another fixture of the same body, keep the nearest hit:
+            if (fraction < queryFractions[t.queryIndex]) {
+                queryFractions[t.queryIndex] = fraction;
+            }
+            return true;
+        }
+        if (queryCount == queryOut.length) {
+            return false;
+        }
+        t.queryStamp = queryStamp;
+        t.queryIndex = queryCount;
+        queryFractions[queryCount] = fraction;
+        queryOut[queryCount++] = t;
+        return true;
+    }
+
+    private void createQueryCallbacks() {
+        queryFractions = new float[16];
+        aabbCallback = new QueryCallback() {
+            @Override
+            public boolean reportFixture(Fixture fixture) {
+                return addResult(fixture, 0);
+            }
+        };
+        pointCallback = new QueryCallback() {
+            @Override
+            public boolean reportFixture(Fixture fixture) {
+                if (fixture.testPoint(queryX, queryY)) {
+                    return addResult(fixture, 0);
+                }
+                return true;
+            }
+        };
+        closestRayCallback = new RayCastCallback() {
+            @Override
+            public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+                Tabody t = (Tabody) fixture.getBody().getUserData();
+                if (t == null) {
+                    return -1;// Ignore.
+                }
+                rayHit = t;
+                rayHitX = point.x;
+                rayHitY = point.y;
+                rayNormalX = normal.x;
+                rayNormalY = normal.y;
+                rayFraction = fraction;
+                return fraction;// Clip the ray, only closer hits are reported.
+            }
+        };
+        allRayCallback = new RayCastCallback() {
+            @Override
+            public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
+                return addResult(fixture, fraction) ? 1 : 0;
+            }
+        };
+    }
+
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+    //  Contacts:
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+
+    /**
+     * Contact event types
+     */
+    public static final int CONTACT_BEGIN = 0, CONTACT_END = 1, CONTACT_IMPACT = 2;
+
+    /**
+     * Records the contacts of each update() into a buffer, read it after update()
+     * with getContactCount(), getContactA(i) and the like.<br/>
+     * Only pairs accepted by Tabody.contactFilter() are recorded. The events stay as they are
+     * until the next update(), destroying bodies in between records no CONTACT_END
+     *
+     * @param capacity        Max events per update(), the oldest ones are dropped (0 = disabled)
+     * @param impactThreshold Min normal impulse to record a CONTACT_IMPACT event (negative = no impacts)
+     */
+    public void setContactEvents(int capacity, float impactThreshold) {
+        contactCount = 0;
+        contactStart = 0;
+        if (capacity <= 0) {
+            contactA = contactB = null;
+            return;
+        }
+        this.impactThreshold = impactThreshold;
+        contactA = new Tabody[capacity];
+        contactB = new Tabody[capacity];
+        contactTypes = new byte[capacity];
+        contactImpulses = new float[capacity];
+        contactXs = new float[capacity];
+        contactYs = new float[capacity];
+    }
+
+    /**
+     * Box2D wakes bodies inside world.step() (new pairs, new contacts, islands that touch an
+     * awake body) and when a touching body is destroyed, each case goes through one of these callbacks
+     */
+    private void createContactListener() {
+        wakeFilter = new ContactFilter() {
+            @Override
+            public boolean shouldCollide(Fixture fixtureA, Fixture fixtureB) {
+                // Box2D's default filtering:
+                Filter a = fixtureA.getFilterData();
+                Filter b = fixtureB.getFilterData();
+                boolean collide;
+                if (a.groupIndex == b.groupIndex && a.groupIndex != 0) {
+                    collide = a.groupIndex > 0;
+                } else {
+                    collide = (a.maskBits & b.categoryBits) != 0 && (a.categoryBits & b.maskBits) != 0;
+                }
+                if (collide) {
+                    // A new pair wakes both bodies:
+                    wake((Tabody) fixtureA.getBody().getUserData());
+                    wake((Tabody) fixtureB.getBody().getUserData());
+                }
+                return collide;
+            }
+        };
+        contactListener = new ContactListener() {
+            @Override
+            public void beginContact(Contact contact) {
+                wake(contact);
+                recordContact(CONTACT_BEGIN, contact, 0);
+            }
+
+            @Override
+            public void endContact(Contact contact) {
+                wake(contact);
+                recordContact(CONTACT_END, contact, 0);
+            }
+
+            @Override
+            public void preSolve(Contact contact, Manifold oldManifold) {
+            }
+
+            @Override
+            public void postSolve(Contact contact, ContactImpulse impulse) {
+                wake(contact);
+                if (contactA == null || Tabox2D.this.impactThreshold < 0) {
+                    return;
+                }
+                float[] normalImpulses = impulse.getNormalImpulses();
+                float max = 0;
+                for (int i = 0; i < impulse.getCount(); i++) {
+                    max = Math.max(max, normalImpulses[i]);
+                }
+                if (max >= Tabox2D.this.impactThreshold) {
+                    recordContact(CONTACT_IMPACT, contact, max);
+                }
+            }
+        };
+    }
+
+    private void wake(Contact contact) {
+        wake((Tabody) contact.getFixtureA().getBody().getUserData());
+        wake((Tabody) contact.getFixtureB().getBody().getUserData());
+    }
+
+    private void recordContact(int type, Contact contact, float impulse) {
+        if (contactA == null || !stepping) {
+            return;// Disabled, or destroy() outside update() while the last events are being read.
+        }
+        Tabody a = (Tabody) contact.getFixtureA().getBody().getUserData();
+        Tabody b = (Tabody) contact.getFixtureB().getBody().getUserData();
+        if (a == null || b == null
+                || (a.contactBits & b.contactMask) == 0 || (b.contactBits & a.contactMask) == 0) {
+            return;
+        }
+        int capacity = contactA.length;
+        int i = (contactStart + contactCount) % capacity;
+        if (contactCount == capacity) {
+            contactStart = (contactStart + 1) % capacity;// Overwrite the oldest.
+            contactsDropped++;
+        } else {
+            contactCount++;
+        }
+        contactA[i] = a;
+        contactB[i] = b;
+        contactTypes[i] = (byte) type;
+        contactImpulses[i] = impulse;
+        if (type == CONTACT_END) {
+            contactXs[i] = Float.NaN;
+            contactYs[i] = Float.NaN;
+        } else {
+            WorldManifold manifold = contact.getWorldManifold();// Reused by Contact.
+            if (manifold.getNumberOfContactPoints() > 0) {
+                Vector2 point = manifold.getPoints()[0];
+                contactXs[i] = point.x * meterSize;
+                contactYs[i] = point.y * meterSize;
+            } else {
+                contactXs[i] = Float.NaN;
+                contactYs[i] = Float.NaN;
+            }
+        }
+    }
+
+    /**
+     * Get the number of contact events recorded in the last update()
+     *
+     * @return Event count
+     */
+    public int getContactCount() {
+        return contactCount;
+    }
+
+    /**
+     * Get the number of events dropped in the last update() because the buffer was full
+     *
+     * @return Dropped events
+     */
+    public int getContactsDropped() {
+        return contactsDropped;
+    }
+
+    /**
+     * Get the type of a contact event
+     *
+     * @param i Event index, 0 to getContactCount() - 1
+     * @return CONTACT_BEGIN, CONTACT_END or CONTACT_IMPACT
+     */
+    public int getContactType(int i) {
+        return contactTypes[(contactStart + i) % contactA.length];
+    }
+
+    /**
+     * Get the first Tabody of a contact event
+     *
+     * @param i Event index, 0 to getContactCount() - 1
+     * @return The Tabody (it may be destroyed already)
+     */
+    public Tabody getContactA(int i) {
+        return contactA[(contactStart + i) % contactA.length];
+    }
+
+    /**
+     * Get the second Tabody of a contact event
+     *
+     * @param i Event index, 0 to getContactCount() - 1
+     * @return The Tabody (it may be destroyed already)
+     */
+    public Tabody getContactB(int i) {
+        return contactB[(contactStart + i) % contactA.length];
+    }
+
+    /**
+     * Get the max normal impulse of a CONTACT_IMPACT event
+     *
+     * @param i Event index, 0 to getContactCount() - 1
+     * @return The impulse (0 for begin and end events)
+     */
+    public float getContactImpulse(int i) {
+        return contactImpulses[(contactStart + i) % contactA.length];
+    }
+
+    /**
+     * Get the X of the contact point
+     *
+     * @param i Event index, 0 to getContactCount() - 1
+     * @return X in pixels, NaN if unknown (end events)
+     */
+    public float getContactX(int i) {
+        return contactXs[(contactStart + i) % contactA.length];
+    }
+
+    /**
+     * Get the Y of the contact point
+     *
+     * @param i Event index, 0 to getContactCount() - 1
+     * @return Y in pixels, NaN if unknown (end events)
+     */
+    public float getContactY(int i) {
+        return contactYs[(contactStart + i) % contactA.length];
+    }
+
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+    //  Snapshots:
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+
+    /**
+     * First int of a snapshot ("TBX1")
+     */
+    public static final int SNAPSHOT_MAGIC = 0x54425831;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    static final byte SHAPE_CIRCLE = 0, SHAPE_POLYGON = 1;
+    private static final byte FLAG_AWAKE = 1, FLAG_VELOCITY = 2, FLAG_TUNED = 4, FLAG_POOLED = 8;
+    private static final String[] BODY_KINDS = {null, "ball", "box", "poly"};
+
+    /**
+     * Writes the whole simulation (bodies, fixtures, textures, constant velocities)
+     * at the buffer position, in meters and in the buffer byte order.<br/>
+     * Works with direct buffers, so it can go straight to a FileChannel
+     *
+     * @param buffer Destination buffer
+     * @return Bytes written, -1 if the buffer is too small (its position is not changed then)
+     */
+    public int snapshot(ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            buffer.putInt(SNAPSHOT_MAGIC);
+            buffer.putInt(nextId);
+            buffer.putFloat(accumulator);
+            writeBodies(buffer);
+        } catch (BufferOverflowException e) {
+            System.err.println("snapshot(), buffer too small, " + getSnapshotSize() + " bytes needed");
+            buffer.position(start);
+            return -1;
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * Replaces every Tabody with the ones in a snapshot, read at the buffer position.<br/>
+     * Tabodies with an id in the snapshot are reused, so handles stay valid, the others are
+     * left destroyed. The Box2D world is rebuilt: restoring the same snapshot always gives
+     * the same simulation. Contacts are found again in the next step and pooled Tabodies are dropped
+     *
+     * @param buffer Buffer with a snapshot, same byte order used to write it
+     * @return false if the buffer doesn't hold a snapshot (the simulation is not changed then)
+     */
+    public boolean restore(ByteBuffer buffer) {
+        if (world.isLocked()) {
+            System.err.println("restore(), can't restore inside world.step()");
+            return false;
+        }
+        int start = buffer.position();
+        if (buffer.remaining() < 12 || buffer.getInt() != SNAPSHOT_MAGIC) {
+            System.err.println("restore(), not a Tabox2D snapshot");
+            buffer.position(start);
+            return false;
+        }
+        int id = buffer.getInt();
+        float acc = buffer.getFloat();
+        recorderMute++;
+        // Textures are acquired before clearing, so shared ones aren't reloaded:
+        readTextureTable(buffer);
+        clearBodies();
+        readBodies(buffer, true, 1);
+        recorderMute--;
+        nextId = id;
+        accumulator = acc;
+        if (recording()) {
+            ByteBuffer read = buffer.duplicate().order(buffer.order());
+            read.limit(read.position());
+            read.position(start);
+            recorder.restore(read);
+        }
+        return true;
+    }
+
+    /**
+     * Get the bytes snapshot() needs for the current simulation
+     *
+     * @return Snapshot size in bytes
+     */
+    public int getSnapshotSize() {
+        return 12 + getBodiesSize(tabodies);// Header and bodies.
+    }
+
+    /**
+     * Get the bytes writeBodies() needs for the given Tabodies
+     *
+     * @param list Tabodies of this Tabox2D
+     * @return Size in bytes
+     */
+    int getBodiesSize(List<Tabody> list) {
+        int size = 4 + 4;// Texture count and body count.
+        snapshotStamp++;
+        for (int i = 0; i < list.size(); i++) {
+            Tabody t = list.get(i);
+            size += t.poolKey == null ? 65 : 74;
+            if (t.texture != null && t.texture.snapshotStamp != snapshotStamp) {
+                t.texture.snapshotStamp = snapshotStamp;
+                size += 5 + t.texture.path.getBytes(UTF8).length;
+            }
+            Array<Fixture> fixtures = t.body.getFixtureList();
+            for (int j = 0; j < fixtures.size; j++) {
+                Shape shape = fixtures.get(j).getShape();
+                if (shape instanceof CircleShape) {
+                    size += 26;
+                } else if (shape instanceof PolygonShape) {
+                    size += 15 + ((PolygonShape) shape).getVertexCount() * 8;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Get the bytes writeBodies() needs
+     *
+     * @return Size in bytes
+     */
+    int getBodiesSize() {
+        return getBodiesSize(tabodies);
+    }
+
+    /**
+     * Adds the Tabodies written by writeBodies() to the simulation, with new ids
+     *
+     * @param buffer    Source buffer
+     * @param meterSize Meter size used when they were written
+     * @return The number of Tabodies added, at the end of getTabodies()
+     */
+    int addBodies(ByteBuffer buffer, float meterSize) {
+        if (recorder != null) {
+            System.err.println("addBodies(), loaded bodies aren't recorded, load them before TaboxRecorder.start()");
+        }
+        recorderMute++;
+        readTextureTable(buffer);
+        int count = readBodies(buffer, false, this.meterSize / meterSize);
+        recorderMute--;
+        return count;
+    }
+
+    /**
+     * Adds some Tabodies of a block written by writeBodies(), with new ids.
+     * Lets a big block be loaded over several frames
+     *
+     * @param table     The block, from its texture table (its position is not changed)
+     * @param bodies    The same block, at the next Tabody to read (its position moves past them)
+     * @param count     Number of Tabodies to read
+     * @param meterSize Meter size used when they were written
+     */
+    void addBodies(ByteBuffer table, ByteBuffer bodies, int count, float meterSize) {
+        if (recorder != null) {
+            System.err.println("addBodies(), loaded bodies aren't recorded, load them before TaboxRecorder.start()");
+        }
+        recorderMute++;
+        readTextureTable(table.duplicate().order(table.order()));
+        readBodies(bodies, count, false, this.meterSize / meterSize);
+        recorderMute--;
+    }
+
+    /**
+     * Moves the buffer past a texture table
+     *
+     * @param buffer Buffer at a texture table
+     */
+    static void skipTextureTable(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            buffer.get();
+            int length = buffer.getInt();
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /**
+     * Writes the texture table and the Tabodies.<br/>
+     * Shared with TaboxScene, which stores levels in the same layout
+     *
+     * @param buffer Destination buffer
+     */
+    void writeBodies(ByteBuffer buffer) {
+        writeBodies(buffer, tabodies);
+    }
+
+    /**
+     * Writes the texture table and the given Tabodies
+     *
+     * @param buffer Destination buffer
+     * @param list   Tabodies of this Tabox2D
+     */
+    void writeBodies(ByteBuffer buffer, List<Tabody> list) {
+        snapshotStamp++;
+        snapshotTextures.clear();
+        for (int i = 0; i < list.size(); i++) {
+            CachedTexture ct = list.get(i).texture;
+            if (ct != null && ct.snapshotStamp != snapshotStamp) {
+                ct.snapshotStamp = snapshotStamp;
+                ct.snapshotSlot = snapshotTextures.size();
+                snapshotTextures.add(ct);
+            }
+        }
+        buffer.putInt(snapshotTextures.size());
+        for (int i = 0; i < snapshotTextures.size(); i++) {
+            CachedTexture ct = snapshotTextures.get(i);
+            byte[] path = ct.path.getBytes(UTF8);// Atlas regions are found again by name.
+            buffer.put((byte) ct.scope.charAt(0));
+            buffer.putInt(path.length);
+            buffer.put(path);
+        }
+        snapshotTextures.clear();
+
+        buffer.putInt(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            writeBody(buffer, list.get(i));
+        }
+    }
+
+    private void writeBody(ByteBuffer buffer, Tabody t) {
+        Body body = t.body;
+        Vector2 pos = body.getPosition();
+        Vector2 vel = body.getLinearVelocity();
+        byte flags = 0;
+        if (body.isAwake()) {
+            flags |= FLAG_AWAKE;
+        }
+        if (t.hasVelocity) {
+            flags |= FLAG_VELOCITY;
+        }
+        if (t.tuned) {
+            flags |= FLAG_TUNED;
+        }
+        if (t.poolKey != null) {
+            flags |= FLAG_POOLED;
+        }
+        byte kind = 0;
+        for (byte k = 1; k < BODY_KINDS.length; k++) {
+            if (BODY_KINDS[k].equals(t.bodyType)) {
+                kind = k;
+            }
+        }
+        buffer.putInt(t.id);
+        buffer.put((byte) body.getType().ordinal());
+        buffer.put(kind);
+        buffer.put(flags);
+        buffer.putFloat(pos.x);
+        buffer.putFloat(pos.y);
+        buffer.putFloat(body.getAngle());
+        buffer.putFloat(vel.x);
+        buffer.putFloat(vel.y);
+        buffer.putFloat(body.getAngularVelocity());
+        buffer.putFloat(t.velocityX);
+        buffer.putFloat(t.velocityY);
+        buffer.putFloat(t.w);
+        buffer.putFloat(t.h);
+        buffer.putInt(t.contactBits);
+        buffer.putInt(t.contactMask);
+        buffer.putInt(t.texture == null ? -1 : t.texture.snapshotSlot);
+        buffer.putFloat(t.textureGap);
+        if (t.poolKey != null) {
+            // So free() still pools it once restored:
+            buffer.put((byte) t.poolKey.shape);
+            buffer.putFloat(t.poolKey.a);
+            buffer.putFloat(t.poolKey.b);
+        }
+
+        Array<Fixture> fixtures = body.getFixtureList();
+        int countPosition = buffer.position();
+        short count = 0;
+        buffer.putShort(count);
+        for (int j = 0; j < fixtures.size; j++) {
+            Fixture f = fixtures.get(j);
+            Shape shape = f.getShape();
+            if (shape instanceof CircleShape) {
+                CircleShape circle = (CircleShape) shape;
+                buffer.put(SHAPE_CIRCLE);
+                putFixtureParams(buffer, f);
+                buffer.putFloat(circle.getRadius());
+                buffer.putFloat(circle.getPosition().x);
+                buffer.putFloat(circle.getPosition().y);
+            } else if (shape instanceof PolygonShape) {
+                PolygonShape polygon = (PolygonShape) shape;
+                buffer.put(SHAPE_POLYGON);
+                putFixtureParams(buffer, f);
+                buffer.put((byte) polygon.getVertexCount());
+                for (int v = 0; v < polygon.getVertexCount(); v++) {
+                    polygon.getVertex(v, snapshotVertex);
+                    buffer.putFloat(snapshotVertex.x);
+                    buffer.putFloat(snapshotVertex.y);
+                }
+            } else {
+                continue;// Edges and chains are never made by Tabox2D.
+            }
+            count++;
+        }
+        buffer.putShort(countPosition, count);
+    }
+
+    private void putFixtureParams(ByteBuffer buffer, Fixture f) {
+        buffer.putFloat(f.getDensity());
+        buffer.putFloat(f.getFriction());
+        buffer.putFloat(f.getRestitution());
+        buffer.put((byte) (f.isSensor() ? 1 : 0));
+    }
+
+    /**
+     * Reads the texture table, acquiring each texture once
+     *
+     * @param buffer Source buffer
+     */
+    void readTextureTable(ByteBuffer buffer) {
+        releaseTextureTable();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            String scope = String.valueOf((char) buffer.get());
+            byte[] path = new byte[buffer.getInt()];
+            buffer.get(path);
+            snapshotTextures.add(acquireTexture(new String(path, UTF8), scope));
+        }
+    }
+
+    /**
+     * Reads the Tabodies that follow a texture table, adding them to the simulation.
+     * Bodies are created in meters with the shared defs, no pixel conversion
+     *
+     * @param buffer     Source buffer
+     * @param keepIds    true to keep the stored ids, false to give them new ones
+     * @param pixelScale Factor for the stored sizes in pixels (new meter size / stored one)
+     * @return The number of Tabodies read
+     */
+    int readBodies(ByteBuffer buffer, boolean keepIds, float pixelScale) {
+        int count = buffer.getInt();
+        readBodies(buffer, count, keepIds, pixelScale);
+        return count;
+    }
+
+    /**
+     * Reads some of the Tabodies that follow a texture table, the table must be read already
+     *
+     * @param buffer     Source buffer, at the first Tabody to read
+     * @param count      Number of Tabodies to read
+     * @param keepIds    true to keep the stored ids, false to give them new ones
+     * @param pixelScale Factor for the stored sizes in pixels (new meter size / stored one)
+     */
+    private void readBodies(ByteBuffer buffer, int count, boolean keepIds, float pixelScale) {
+        tabodies.ensureCapacity(tabodies.size() + count);
+        BodyDef.BodyType[] types = BodyDef.BodyType.values();
+        for (int i = 0; i < count; i++) {
+            int id = buffer.getInt();
+            sharedBodyDef.type = types[buffer.get()];
+            String kind = BODY_KINDS[buffer.get()];
+            byte flags = buffer.get();
+            sharedBodyDef.position.set(buffer.getFloat(), buffer.getFloat());
+            sharedBodyDef.angle = buffer.getFloat();
+            float vx = buffer.getFloat();
+            float vy = buffer.getFloat();
+            float av = buffer.getFloat();
+            sharedBodyDef.awake = (flags & FLAG_AWAKE) != 0;
+
+            Tabody t = keepIds ? restoredById.remove(id) : null;
+            if (t == null) {
+                t = new Tabody();
+            } else {
+                t.reset();// Same handle as before restore().
+            }
+            t.body = world.createBody(sharedBodyDef);
+            t.bodyType = kind;
+            t.tuned = (flags & FLAG_TUNED) != 0;
+            t.velocityX = buffer.getFloat();
+            t.velocityY = buffer.getFloat();
+            t.hasVelocity = (flags & FLAG_VELOCITY) != 0;
+            t.w = buffer.getFloat() * pixelScale;
+            t.h = buffer.getFloat() * pixelScale;
+            t.contactBits = buffer.getInt();
+            t.contactMask = buffer.getInt();
+            int texture = buffer.getInt();
+            float gap = buffer.getFloat();
+            if ((flags & FLAG_POOLED) != 0) {
+                t.poolKey = new PoolKey(buffer.get(), sharedBodyDef.type, buffer.getFloat(), buffer.getFloat());
+            }
+
+            int fixtures = buffer.getShort();
+            for (int j = 0; j < fixtures; j++) {
+                byte shape = buffer.get();
+                sharedFixtureDef.density = buffer.getFloat();
+                sharedFixtureDef.friction = buffer.getFloat();
+                sharedFixtureDef.restitution = buffer.getFloat();
+                sharedFixtureDef.isSensor = buffer.get() != 0;
+                if (shape == SHAPE_CIRCLE) {
+                    sharedCircle.setRadius(buffer.getFloat());
+                    snapshotVertex.set(buffer.getFloat(), buffer.getFloat());
+                    sharedCircle.setPosition(snapshotVertex);
+                    sharedFixtureDef.shape = sharedCircle;
+                } else {
+                    int n = buffer.get() * 2;
+                    for (int v = 0; v < n; v++) {
+                        polyBuffer[v] = buffer.getFloat();
+                    }
+                    sharedPolygon.set(polyBuffer, 0, n);
+                    sharedFixtureDef.shape = sharedPolygon;
+                }
+                t.body.createFixture(sharedFixtureDef);
+            }
+            // After the fixtures, the mass update would shift a velocity set in the def:
+            t.body.setLinearVelocity(vx, vy);
+            t.body.setAngularVelocity(av);
+            t.body.setAwake(sharedBodyDef.awake);
+            track(t);
+            if (keepIds) {
+                t.id = id;
+            }
+            if (texture >= 0) {
+                CachedTexture ct = snapshotTextures.get(texture);
+                ct.refs++;
+                t.bindTexture(ct, ct.path, ct.scope, gap);
+            }
+        }
+        // Leave the shared objects as the factories expect them:
+        sharedBodyDef.awake = true;
+        sharedFixtureDef.isSensor = false;
+        snapshotVertex.set(0, 0);
+        sharedCircle.setPosition(snapshotVertex);
+        releaseTextureTable();
+        // Not in the snapshot, their bodies went with the old world:
+        for (Tabody t : restoredById.values()) {
+            t.index = -1;
+            t.body = null;
+        }
+        restoredById.clear();
+    }
+
+    private void releaseTextureTable() {
+        for (int i = 0; i < snapshotTextures.size(); i++) {
+            CachedTexture ct = snapshotTextures.get(i);
+            ct.refs--;
+            if (ct.refs == 0 && ct.texture != null) {
+                ct.texture.dispose();
+                textures.remove(ct.name);
+            }
+        }
+        snapshotTextures.clear();
+    }
+
+    /**
+     * Get a checksum of every body state (id, position, angle, velocities, awake flag),
+     * equal in two simulations only if they match bit for bit
+     *
+     * @return 64-bit FNV-1a hash
+     */
+    public long getStateChecksum() {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < tabodies.size(); i++) {
+            Tabody t = tabodies.get(i);
+            Body body = t.body;
+            Vector2 pos = body.getPosition();
+            Vector2 vel = body.getLinearVelocity();
+            hash = mix(hash, t.id);
+            hash = mix(hash, Float.floatToIntBits(pos.x));
+            hash = mix(hash, Float.floatToIntBits(pos.y));
+            hash = mix(hash, Float.floatToIntBits(body.getAngle()));
+            hash = mix(hash, Float.floatToIntBits(vel.x));
+            hash = mix(hash, Float.floatToIntBits(vel.y));
+            hash = mix(hash, Float.floatToIntBits(body.getAngularVelocity()));
+            hash = mix(hash, body.isAwake() ? 1 : 0);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Sets the recorder that logs the calls, see TaboxRecorder.start()
+     *
+     * @param recorder The recorder, null to stop
+     */
+    void setRecorder(TaboxRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    private boolean recording() {
+        return recorder != null && recorderMute == 0;
+    }
+
+    /**
+     * Removes every Tabody and replaces the world with an empty one, so a restored
+     * world has the same Box2D state (proxies, contacts) wherever it's restored.<br/>
+     * The Tabodies are kept by id, to be reused by readBodies(). Pools are emptied
+     */
+    private void clearBodies() {
+        for (int i = 0; i < destroyQueue.size(); i++) {
+            destroyQueue.get(i).queued = false;
+            destroyQueue.get(i).queuedFree = false;
+        }
+        destroyQueue.clear();
+        restoredById.clear();
+        for (int i = tabodies.size() - 1; i >= 0; i--) {
+            Tabody t = tabodies.get(i);
+            releaseTexture(t);
+            untrack(t);
+            t.dirty = false;
+            restoredById.put(t.id, t);
+        }
+        for (List<Tabody> pool : pools.values()) {
+            for (Tabody t : pool) {
+                releaseTexture(t);
+                t.body = null;
+            }
+        }
+        pools.clear();
+        pooled = 0;
+        for (int i = 0; i < awake.size(); i++) {
+            awake.get(i).awakeListed = false;
+        }
+        awake.clear();
+        dirty.clear();
+        Vector2 gravity = world.getGravity();
+        World empty = new World(new Vector2(gravity.x, gravity.y), true);
+        world.dispose();
+        world = empty;
+        world.setContactListener(contactListener);
+        world.setContactFilter(wakeFilter);
+        contactStart = 0;
+        contactCount = 0;
+    }
+
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+    //  Other stuff:
     ///////////////////////////////////////////////////////////////
     ///////////////////////////////////////////////////////////////
-    //  Other stuff:
-    ///////////////////////////////////////////////////////////////
-    ///////////////////////////////////////////////////////////////
 
     /**
-     * Updates simulation, default delta = Gdx.graphics.getDeltaTime()
+     * Updates simulation, default delta = Gdx.graphics.getDeltaTime()
+     */
+    public void update() {
+        this.update(Gdx.graphics.getDeltaTime());
+    }
+
+    /**
+     * Updates the simulation with the given delta time
+     *
+     * @param delta The delta time to simulate
+     */
+    public void update(float delta) {
+        long start = stats != null ? System.nanoTime() : 0;
+        stepNanos = 0;
+        forcesNanos = 0;
+        recorderMute++;
+        contactStart = 0;
+        contactCount = 0;
+        contactsDropped = 0;
+        stepping = true;
+        if (fixedStep <= 0) {
+            step(delta);
+            captureCurrent();
+            exportTransforms();
+            alpha = 1;
+        } else {
+            accumulator += delta;
+            int steps = Math.min((int) (accumulator / fixedStep), maxSubSteps);
+            for (int i = 0; i < steps; i++) {
+                if (i == steps - 1) {
+                    // Only the last two states are needed for interpolation:
+                    capturePrevious(steps == 1);
+                }
+                step(fixedStep);
+                accumulator -= fixedStep;
+            }
+            if (steps > 0) {
+                captureCurrent();
+                exportTransforms();
+            }
+            if (accumulator >= fixedStep) {
+                // Too far behind, drop the time instead of spiraling:
+                accumulator %= fixedStep;
+            }
+            alpha = accumulator / fixedStep;
+        }
+        stepping = false;
+        // Move sprites, only awake bodies move:
+        long syncStart = stats != null ? System.nanoTime() : 0;
+        for (int i = 0; i < awake.size(); i++) {
+            syncSprite(awake.get(i));
+        }
+        for (int i = 0; i < dirty.size(); i++) {
+            Tabody t = dirty.get(i);
+            t.dirty = false;
+            if (t.index >= 0 && !t.awake) {
+                syncSprite(t);
+            }
+        }
+        dirty.clear();
+        if (stats != null) {
+            long end = System.nanoTime();
+            stats.record(TaboxStats.UPDATE, end - start);
+            stats.record(TaboxStats.STEP, stepNanos);
+            stats.record(TaboxStats.FORCES, forcesNanos);
+            stats.record(TaboxStats.SYNC, end - syncStart);
+            if (jfr != null) {
+                jfr.frame(end - start, stepNanos, forcesNanos, end - syncStart, tabodies.size(), awake.size());
+            }
+        }
+        recorderMute--;
+        if (recording()) {
+            recorder.step(delta);
+        }
+    }
+
+    private void syncSprite(Tabody t) {
+        if (t.sprite != null) {
+            float xb = MathUtils.lerp(t.prevX, t.x, alpha) * meterSize;
+            float yb = MathUtils.lerp(t.prevY, t.y, alpha) * meterSize;
+            xb -= t.sprite.getWidth() / 2;
+            yb -= t.sprite.getHeight() / 2;
+            t.sprite.setPosition(xb, yb);
+            t.sprite.setRotation(MathUtils.lerp(t.prevAngle, t.angle, alpha) * MathUtils.radiansToDegrees);
+        }
+    }
+
+    /**
+     * Steps the world once and applies the constant forces
+     *
+     * @param dt Seconds to simulate
+     */
+    private void step(float dt) {
+        long start = stats != null ? System.nanoTime() : 0;
+        world.step(dt, 6, 2);
+        long stepped = stats != null ? System.nanoTime() : 0;
+        flushDestroyQueue();
+        long forcesStart = stats != null ? System.nanoTime() : 0;
+        for (int i = 0; i < movers.size(); i++) {
+            Tabody t = movers.get(i);
+            // Constant force (using velocity vector):
+            if (t.hasVelocity) {
+                t.body.setLinearVelocity(t.velocityX, t.velocityY);
+                wake(t);
+            }
+        }
+        if (stats != null) {
+            stepNanos += stepped - start;
+            forcesNanos += System.nanoTime() - forcesStart;
+        }
+    }
+
+    /**
+     * Saves the state before the last step of the frame, for interpolation
+     *
+     * @param current If true, the current state is still the body state (no step since the last capture)
+     */
+    private void capturePrevious(boolean current) {
+        // Sleeping bodies already have both states equal:
+        for (int i = 0; i < awake.size(); i++) {
+            Tabody t = awake.get(i);
+            if (t.moverIndex < 0) {
+                continue;
+            }
+            if (!current && (t.awake || t.body.isAwake())) {
+                Vector2 pos = t.body.getPosition();
+                t.prevX = pos.x;
+                t.prevY = pos.y;
+                t.prevAngle = t.body.getAngle();
+            } else {
+                t.prevX = t.x;
+                t.prevY = t.y;
+                t.prevAngle = t.angle;
+            }
+        }
+    }
+
+    /**
+     * Reads the transforms of the awake set: bodies awake in the last frame (to get the place
+     * where they fell asleep) and the ones woken since. Bodies found asleep leave the set.<br/>
+     * Static and sleeping bodies are skipped, no JNI calls for them
+     */
+    private void captureCurrent() {
+        int kept = 0;
+        for (int i = 0; i < awake.size(); i++) {
+            Tabody t = awake.get(i);
+            if (t.moverIndex < 0) {
+                t.awakeListed = false;// Destroyed, freed or deactivated.
+                continue;
+            }
+            boolean isAwake = t.body.isAwake();
+            if (isAwake || t.awake) {
+                Vector2 pos = t.body.getPosition();
+                float angle = t.body.getAngle();
+                if (pos.x != t.x || pos.y != t.y || angle != t.angle) {
+                    t.x = pos.x;
+                    t.y = pos.y;
+                    t.angle = angle;
+                    if (!isAwake) {
+                        t.markDirty();
+                    }
+                }
+                if (fixedStep <= 0 || !isAwake) {
+                    // Asleep, nothing to interpolate until it wakes:
+                    t.prevX = t.x;
+                    t.prevY = t.y;
+                    t.prevAngle = t.angle;
+                }
+                if (transforms != null) {
+                    if (isAwake) {
+                        Vector2 vel = t.body.getLinearVelocity();
+                        t.vx = vel.x;
+                        t.vy = vel.y;
+                    } else {
+                        t.vx = 0;
+                        t.vy = 0;
+                    }
+                }
+            }
+            t.awake = isAwake;
+            if (isAwake) {
+                awake.set(kept++, t);
+            } else {
+                t.awakeListed = false;
+            }
+        }
+        for (int i = awake.size() - 1; i >= kept; i--) {
+            awake.remove(i);
+        }
+    }
+
+    /**
+     * Floats per Tabody in the transform buffer
+     */
+    public static final int TRANSFORM_STRIDE = 6;
+    /**
+     * Offsets in each transform: position and velocity in pixels (per second),
+     * angle in degrees, awake = 1 or 0
+     */
+    public static final int TRANSFORM_X = 0, TRANSFORM_Y = 1, TRANSFORM_ANGLE = 2,
+            TRANSFORM_VX = 3, TRANSFORM_VY = 4, TRANSFORM_AWAKE = 5;
+
+    /**
+     * Enables the transform buffer, filled after each step with the state of every
+     * Tabody in getTabodies() order. Systems that read all the bodies can loop over it
+     * instead of going through Body (a JNI call per read)
+     *
+     * @param enabled true to fill the buffer in update()
+     */
+    public void setTransformExport(boolean enabled) {
+        if (!enabled) {
+            transforms = null;
+            transformCount = 0;
+        } else if (transforms == null) {
+            transforms = newTransformBuffer(Math.max(64, tabodies.size()));
+            // Velocities are only tracked while the export is on:
+            for (int i = 0; i < movers.size(); i++) {
+                movers.get(i).awake = true;
+                wake(movers.get(i));
+            }
+        }
+    }
+
+    /**
+     * Get the transform buffer (direct, native order), TRANSFORM_STRIDE floats per Tabody.<br/>
+     * Read it with absolute gets, e.g. buffer.get(i * TRANSFORM_STRIDE + TRANSFORM_X)
+     *
+     * @return The buffer, null if setTransformExport() is off
+     */
+    public FloatBuffer getTransforms() {
+        return transforms;
+    }
+
+    /**
+     * Get the number of Tabodies written in the transform buffer
+     *
+     * @return Tabodies in the last export
+     */
+    public int getTransformCount() {
+        return transformCount;
+    }
+
+    private FloatBuffer newTransformBuffer(int bodies) {
+        return ByteBuffer.allocateDirect(bodies * TRANSFORM_STRIDE * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /**
+     * Writes the Java side copy of the transforms, no JNI calls
+     */
+    private void exportTransforms() {
+        if (transforms == null) {
+            return;
+        }
+        int count = tabodies.size();
+        if (transforms.capacity() < count * TRANSFORM_STRIDE) {
+            transforms = newTransformBuffer(count * 2);
+        }
+        FloatBuffer buffer = transforms;
+        buffer.clear();
+        float toDegrees = MathUtils.radiansToDegrees;
+        for (int i = 0; i < count; i++) {
+            Tabody t = tabodies.get(i);
+            int offset = i * TRANSFORM_STRIDE;
+            buffer.put(offset + TRANSFORM_X, t.x * meterSize);
+            buffer.put(offset + TRANSFORM_Y, t.y * meterSize);
+            buffer.put(offset + TRANSFORM_ANGLE, t.angle * toDegrees);
+            buffer.put(offset + TRANSFORM_VX, t.vx * meterSize);
+            buffer.put(offset + TRANSFORM_VY, t.vy * meterSize);
+            buffer.put(offset + TRANSFORM_AWAKE, t.awake ? 1 : 0);
+        }
+        buffer.limit(count * TRANSFORM_STRIDE);
+        transformCount = count;
+    }
+
+    /**
+     * Get the number of bodies that were awake in the last update()
+     *
+     * @return Awake dynamic and kinematic bodies
+     */
+    public int getAwakeCount() {
+        return awake.size();
+    }
+
+    /**
+     * Adds a new Tabody to the simulation, with no interpolation pending
+     *
+     * @param t The new Tabody
+     */
+    private void track(Tabody t) {
+        t.snap();
+        t.id = nextId++;
+        t.index = tabodies.size();
+        t.body.setUserData(t);
+        tabodies.add(t);
+        addMover(t);
+        drawOrderDirty = true;
+    }
+
+    private void addMover(Tabody t) {
+        if (t.moverIndex < 0 && t.body.getType() != BodyDef.BodyType.StaticBody) {
+            t.moverIndex = movers.size();
+            t.awake = true;
+            movers.add(t);
+            wake(t);
+        }
+    }
+
+    /**
+     * Adds a mover to the awake set, its transform is read in the next update()
+     *
+     * @param t The Tabody, ignored if null, static or already in the set
+     */
+    private void wake(Tabody t) {
+        if (t != null && !t.awakeListed && t.moverIndex >= 0) {
+            t.awakeListed = true;
+            awake.add(t);
+        }
+    }
+
+    private void removeMover(Tabody t) {
+        if (t.moverIndex >= 0) {
+            Tabody lastMover = movers.remove(movers.size() - 1);
+            if (lastMover != t) {
+                movers.set(t.moverIndex, lastMover);
+                lastMover.moverIndex = t.moverIndex;
+            }
+            t.moverIndex = -1;
+        }
+    }
+
+    /**
+     * Removes the Tabody from the list in O(1), the last one takes its slot
+     *
+     * @param t The Tabody to remove
+     */
+    private void untrack(Tabody t) {
+        Tabody last = tabodies.remove(tabodies.size() - 1);
+        if (last != t) {
+            tabodies.set(t.index, last);
+            last.index = t.index;
+        }
+        t.index = -1;
+        removeMover(t);
+        if (t.sprite != null && !drawOrderDirty) {
+            deadInDrawOrder++;// Skipped by draw() until the list is compacted.
+            if (t.cullReach >= cullMargin) {
+                cullMarginDirty = true;
+            }
+        }
+    }
+
+    /**
+     * Dispose the world, the loaded textures and the renderers in the simulation
+     */
+    public void dispose() {
+        world.dispose();
+        pools.clear();
+        pooled = 0;
+        sharedCircle.dispose();
+        sharedPolygon.dispose();
+        for (CachedTexture ct : textures.values()) {
+            if (ct.texture != null) {
+                ct.texture.dispose();
+            }
+        }
+        textures.clear();
+        for (Disposable atlas : atlases) {
+            atlas.dispose();
+        }
+        atlases.clear();
+        atlasPages = 0;
+        if (spriteBath != null) {
+            spriteBath.dispose();
+            spriteBath = null;
+        }
+        if (renderer != null) {
+            renderer.dispose();
+            sr.dispose();
+            renderer = null;
+            sr = null;
+        }
+    }
+
+    /**
+     * Destroys the given Tabody object
+     *
+     * @param tabody Tabody object to destroy
+     */
+    public void destroy(Tabody tabody) {
+        if (!owns(tabody)) {
+            return;
+        }
+        if (recording()) {
+            recorder.op(TaboxRecorder.DESTROY, tabody);
+        }
+        if (world.isLocked()) {
+            // Called from a Box2D callback, inside world.step():
+            destroyLater(tabody);
+            return;
+        }
+        world.destroyBody(tabody.body);
+        releaseTexture(tabody);
+        untrack(tabody);
+    }
+
+    /**
+     * Queues the given Tabody to be destroyed right after the next world step.<br/>
+     * Safe to call while iterating getTabodies()
+     *
+     * @param tabody Tabody object to destroy
+     */
+    public void destroyLater(Tabody tabody) {
+        if (owns(tabody) && !tabody.queued) {
+            if (recording()) {
+                recorder.op(TaboxRecorder.DESTROY_LATER, tabody);
+            }
+            tabody.queued = true;
+            destroyQueue.add(tabody);
+        }
+    }
+
+    private void flushDestroyQueue() {
+        for (int i = 0; i < destroyQueue.size(); i++) {
+            Tabody t = destroyQueue.get(i);
+            t.queued = false;
+            if (t.queuedFree) {
+                t.queuedFree = false;
+                free(t);
+            } else {
+                destroy(t);
+            }
+        }
+        destroyQueue.clear();
+    }
+
+    private boolean owns(Tabody t) {
+        return t.index >= 0 && t.index < tabodies.size() && tabodies.get(t.index) == t;
+    }
+
+    /**
+     * Draws the world, this is, sprites and Box2DDebugRenderer shapes<br/>
+     * Sprites are drawn in a single batch pass, grouped by texture
+     * (creation order is kept within the same texture)
      */
-    public void update() {
-        this.update(Gdx.graphics.getDeltaTime());
+    public void draw() {
+        long start = stats != null ? System.nanoTime() : 0;
+        if (drawOrderDirty) {
+            sortDrawOrder();
+        } else if (deadInDrawOrder > drawOrder.size() / 2) {
+            compactDrawOrder();
+        }
+
+        // Draw sprites:
+        lastTexture = null;
+        textureBinds = 0;
+        spritesDrawn = 0;
+        if (spriteBath == null) {
+            spriteBath = new SpriteBatch();
+        }
+        spriteBath.setProjectionMatrix(screenCamera.combined);
+        spriteBath.begin();
+        if (culling) {
+            findVisible();
+            for (int i = 0; i < visibleCount; i++) {
+                drawSprite(drawOrder.get(visibleSlots[i]));
+            }
+        } else {
+            for (int i = 0; i < drawOrder.size(); i++) {
+                Tabody t = drawOrder.get(i);
+                if (t.index >= 0) {// Not destroyed.
+                    drawSprite(t);
+                }
+            }
+        }
+        spriteBath.end();
+        drawCalls = spriteBath.renderCalls;
+        lastTexture = null;
+
+        if (this.debug) {
+            if (renderer == null) {
+                renderer = new Box2DDebugRenderer();
+                sr = new ShapeRenderer();
+            }
+            renderer.render(world, camera.combined);
+            sr.setProjectionMatrix(screenCamera.combined);
+            sr.begin(ShapeRenderer.ShapeType.Filled);
+            sr.setAutoShapeType(true);
+            // Center of mass:
+            sr.setColor(Color.RED);
+            for (Tabody t : tabodies) {
+                sr.circle(t.body.getWorldCenter().x * meterSize, t.body.getWorldCenter().y * meterSize, 3);
+            }
+            // Geometric center:
+            sr.setColor(Color.CYAN);
+            sr.set(ShapeRenderer.ShapeType.Line);
+            for (Tabody t : tabodies) {
+                sr.circle(t.body.getPosition().x * meterSize, t.body.getPosition().y * meterSize, 3);
+            }
+            sr.end();
+        }
+        if (stats != null) {
+            long nanos = System.nanoTime() - start;
+            stats.record(TaboxStats.DRAW, nanos);
+            if (jfr != null) {
+                jfr.draw(nanos, spritesDrawn, drawCalls, textureBinds);
+            }
+        }
+    }
+
+    private void drawSprite(Tabody t) {
+        if (t.sprite.getTexture() != lastTexture) {
+            lastTexture = t.sprite.getTexture();
+            textureBinds++;
+        }
+        t.sprite.draw(spriteBath);
+        spritesDrawn++;
     }
 
     /**
-     * Updates the simulation with the given delta time
-     *
-     * @param delta The delta time to simulate
+     * Queries the broadphase with the view rectangle, grown by the largest sprite overhang,
+     * and sorts the draw list slots of the Tabodies whose own sprite reaches the view
      */
-    public void update(float delta) {
-        world.step(delta, 6, 2);
-        // Move sprites:
+    private void findVisible() {
+        visibleCount = 0;
+        cullStamp++;
+        if (cullMarginDirty) {
+            cullMargin = 0;
+            for (int i = 0; i < drawOrder.size(); i++) {
+                Tabody t = drawOrder.get(i);
+                if (t.index >= 0) {
+                    cullMargin = Math.max(cullMargin, t.cullReach);
+                }
+            }
+            cullMarginDirty = false;
+        }
+        float halfW = width * zoom / 2;
+        float halfH = height * zoom / 2;
+        viewLeft = cameraX - halfW;
+        viewBottom = cameraY - halfH;
+        viewRight = cameraX + halfW;
+        viewTop = cameraY + halfH;
+        world.QueryAABB(cullCallback,
+                (viewLeft - cullMargin) / meterSize, (viewBottom - cullMargin) / meterSize,
+                (viewRight + cullMargin) / meterSize, (viewTop + cullMargin) / meterSize);
+        // Same order as the full draw list:
+        Arrays.sort(visibleSlots, 0, visibleCount);
+    }
+
+    private void addVisible(Tabody t) {
+        if (t == null || t.sprite == null || t.cullStamp == cullStamp) {
+            return;// Untextured, or already found through another fixture.
+        }
+        t.cullStamp = cullStamp;
+        float px = t.x * meterSize, py = t.y * meterSize;
+        if (px + t.cullReach < viewLeft || px - t.cullReach > viewRight
+                || py + t.cullReach < viewBottom || py - t.cullReach > viewTop) {
+            return;// Found through the margin of a bigger sprite.
+        }
+        if (visibleCount == visibleSlots.length) {
+            visibleSlots = Arrays.copyOf(visibleSlots, visibleCount * 2);
+        }
+        visibleSlots[visibleCount++] = t.drawSlot;
+    }
+
+    /**
+     * Rebuilds the list of textured Tabodies, sorted by texture
+     */
+    private void sortDrawOrder() {
+        drawOrder.clear();
+        cullMargin = 0;
         for (Tabody t : tabodies) {
             if (t.sprite != null) {
-                float xb = t.body.getPosition().x * meterSize;
-                float yb = t.body.getPosition().y * meterSize;
-                xb -= t.sprite.getWidth() / 2;
-                yb -= t.sprite.getHeight() / 2;
-                t.sprite.setPosition(xb, yb);
-                t.sprite.setRotation(t.body.getAngle() * MathUtils.radiansToDegrees);
+                drawOrder.add(t);
+                cullMargin = Math.max(cullMargin, t.cullReach);
             }
-            // Constant force (using velocity vector):
-            if (!t.velocity.equals(Vector2.Zero)) {
-                t.body.setLinearVelocity(t.velocity);
+        }
+        cullMarginDirty = false;
+        Collections.sort(drawOrder, BY_TEXTURE);// Stable.
+        for (int i = 0; i < drawOrder.size(); i++) {
+            drawOrder.get(i).drawSlot = i;
+        }
+        drawOrderDirty = false;
+        deadInDrawOrder = 0;
+    }
+
+    /**
+     * Drops the destroyed Tabodies from the draw list, keeping the order
+     */
+    private void compactDrawOrder() {
+        int n = 0;
+        for (int i = 0; i < drawOrder.size(); i++) {
+            Tabody t = drawOrder.get(i);
+            if (t.index >= 0) {
+                t.drawSlot = n;
+                drawOrder.set(n++, t);
             }
         }
+        for (int i = drawOrder.size() - 1; i >= n; i--) {
+            drawOrder.remove(i);
+        }
+        deadInDrawOrder = 0;
+    }
+
+    private static final Comparator<Tabody> BY_TEXTURE = new Comparator<Tabody>() {
+        @Override
+        public int compare(Tabody a, Tabody b) {
+            return a.texture.key < b.texture.key ? -1 : (a.texture.key == b.texture.key ? 0 : 1);
+        }
+    };
+
+    /**
+     * Get the number of GL draw calls issued by the sprite batch in the last draw()
+     *
+     * @return Draw calls in the last frame
+     */
+    public int getDrawCalls() {
+        return drawCalls;
     }
 
     /**
-     * Dispose the world and Box2DDebugRenderer in the simulation
+     * Get the number of texture switches in the last draw()
+     *
+     * @return Texture binds in the last frame
      */
-    public void dispose() {
-        world.dispose();
-        renderer.dispose();
+    public int getTextureBinds() {
+        return textureBinds;
     }
 
     /**
-     * Destroys the given Tabody object
+     * Get the number of sprites submitted in the last draw()
      *
-     * @param tabody Tabody object to destroy
+     * @return Sprites drawn in the last frame
      */
-    public void destroy(Tabody tabody) {
-        for (Tabody t : tabodies) {
-            if (t.equals(tabody)) {
-                world.destroyBody(t.body);
-                tabodies.remove(tabody);
-                return;
+    public int getSpritesDrawn() {
+        return spritesDrawn;
+    }
+
+    /**
+     * Turns the frame profiling on or off, off by default.<br/>
+     * When on, update() and draw() time their parts (world step, forces, sprite sync, drawing)
+     * into the rolling percentiles of getStats(). When off the cost is a null check per part
+     *
+     * @param on True to profile
+     */
+    public void setProfiling(boolean on) {
+        setProfiling(on, false);
+    }
+
+    /**
+     * Turns the frame profiling on or off, and also emits the frames as JFR events
+     * (tabox2d.Frame and tabox2d.Draw).<br/>
+     * The events need TaboxJfr.java and Java 11+, it's loaded only here, so leave it out
+     * on Java 8 or Android. Without it, profiling goes on without events
+     *
+     * @param on  True to profile
+     * @param jfr True to also emit JFR events
+     */
+    public void setProfiling(boolean on, boolean jfr) {
+        if (!on) {
+            stats = null;
+        } else if (stats == null) {
+            stats = new TaboxStats(240);
+        }
+        this.jfr = on && jfr ? loadJfr() : null;
+    }
+
+    private TaboxStats.FrameListener loadJfr() {
+        // Same package as this class, default one or not:
+        String name = Tabox2D.class.getName().replace("Tabox2D", "TaboxJfr");
+        try {
+            return (TaboxStats.FrameListener) Class.forName(name).newInstance();
+        } catch (Exception e) {
+            System.err.println("setProfiling(), JFR events not available (TaboxJfr needs Java 11+): " + e);
+        } catch (LinkageError e) {
+            System.err.println("setProfiling(), JFR events not available (TaboxJfr needs Java 11+): " + e);
+        }
+        return null;
+    }
+
+    /**
+     * Get the profiling stats, with the counters refreshed.<br/>
+     * Poll it when needed (e.g. once per second), the counters walk every Tabody
+     *
+     * @return The stats, null if profiling is off
+     */
+    public TaboxStats getStats() {
+        if (stats == null) {
+            return null;
+        }
+        int statics = 0;
+        int kinematic = 0;
+        int fixtures = 0;
+        int vertices = 0;
+        for (int i = 0; i < tabodies.size(); i++) {
+            Body body = tabodies.get(i).body;
+            if (body.getType() == BodyDef.BodyType.StaticBody) {
+                statics++;
+            } else if (body.getType() == BodyDef.BodyType.KinematicBody) {
+                kinematic++;
+            }
+            Array<Fixture> list = body.getFixtureList();
+            fixtures += list.size;
+            for (int j = 0; j < list.size; j++) {
+                if (list.get(j).getShape() instanceof PolygonShape) {
+                    vertices += ((PolygonShape) list.get(j).getShape()).getVertexCount();
+                }
             }
         }
+        stats.staticBodies = statics;
+        stats.kinematicBodies = kinematic;
+        stats.dynamicBodies = tabodies.size() - statics - kinematic;
+        stats.awakeBodies = awake.size();
+        stats.fixtures = fixtures;
+        stats.polygonVertices = vertices;
+        stats.contacts = world.getContactCount();
+        stats.spritesDrawn = spritesDrawn;
+        stats.drawCalls = drawCalls;
+        stats.textureBinds = textureBinds;
+        stats.texturesLoaded = getTexturesLoaded();
+        return stats;
     }
 
     /**
-     * Draws the world, this is, sprites and Box2DDebugRenderer shapes
+     * Get the number of textures loaded in GPU memory
+     *
+     * @return Distinct textures currently in use, atlas pages included
      */
-    public void draw() {
-        // Draw sprites:
+    public int getTexturesLoaded() {
+        int count = atlasPages;
+        for (CachedTexture ct : textures.values()) {
+            if (ct.texture != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Set the size of the pages created by packTextures()
+     *
+     * @param size Width and height in pixels (1024 by default)
+     */
+    public void setAtlasPageSize(int size) {
+        this.atlasPageSize = size;
+    }
+
+    /**
+     * Packs the given internal files into atlas pages, later calls to
+     * Tabody.texture() with those files use the atlas instead of a single texture.<br/>
+     * With no arguments, packs the textures already in use and moves their Tabodies to the atlas
+     *
+     * @param fileNamePaths Paths or names of the files
+     */
+    public void packTextures(String... fileNamePaths) {
+        TaboxAtlas packed = new TaboxAtlas(atlasPageSize, 2);
+        if (fileNamePaths.length == 0) {
+            for (CachedTexture ct : textures.values()) {
+                if (ct.texture != null) {
+                    addToAtlas(packed, ct.path, ct.scope);
+                }
+            }
+        } else {
+            for (String fileNamePath : fileNamePaths) {
+                addToAtlas(packed, fileNamePath, "i");
+            }
+        }
+        packed.pack();
+        if (packed.getPageCount() == 0) {
+            packed.dispose();
+            return;
+        }
+        atlases.add(packed);// Keeps the page pixmaps of the textures.
+        addAtlas(packed.generateTextureAtlas(textureFilter(filterMin), textureFilter(filterMag)));
+
+        // Move the Tabodies already textured to the atlas:
         for (Tabody t : tabodies) {
-            if (t.sprite != null) {
-                spriteBath.begin();
-                t.sprite.draw(spriteBath);
-                spriteBath.end();
-            }
-            if (this.debug) {
-                renderer.render(world, camera.combined);
-                sr.begin(ShapeRenderer.ShapeType.Filled);
-                sr.setAutoShapeType(true);
-                sr.setColor(Color.RED);
-                // Center of mass:
-                sr.circle(t.body.getWorldCenter().x * meterSize, t.body.getWorldCenter().y * meterSize, 3);
-                // Geometric center:
-                sr.setColor(Color.CYAN);
-                sr.set(ShapeRenderer.ShapeType.Line);
-                sr.circle(t.body.getPosition().x * meterSize, t.body.getPosition().y * meterSize, 3);
-                sr.end();
+            if (t.texture != null && t.texture.texture != null
+                    && textures.containsKey("atlas:" + stripExtension(t.texturePath))) {
+                t.texture(t.texturePath, t.textureScope, t.textureGap);
+            }
+        }
+    }
+
+    private void addToAtlas(TaboxAtlas packed, String fileNamePath, String scope) {
+        String name = stripExtension(fileNamePath);
+        if (textures.containsKey("atlas:" + name) || packed.contains(name)) {
+            return;
+        }
+        if (scope.equals("e")) {
+            packed.add(name, new Pixmap(Gdx.files.external(fileNamePath)));
+        } else {
+            packed.add(name, new Pixmap(Gdx.files.internal(fileNamePath)));
+        }
+    }
+
+    /**
+     * Loads a pre-packed atlas (libGDX TexturePacker format), Tabody.texture()
+     * looks up its regions by file name without extension
+     *
+     * @param packFile Path or name of the .atlas file
+     * @param scope    Internal "i" or external "e"
+     */
+    public void loadAtlas(String packFile, String scope) {
+        if (scope.toLowerCase().equals("e")) {
+            addAtlas(new TextureAtlas(Gdx.files.external(packFile)));
+        } else {
+            addAtlas(new TextureAtlas(Gdx.files.internal(packFile)));
+        }
+    }
+
+    /**
+     * Loads a pre-packed internal atlas (libGDX TexturePacker format)
+     *
+     * @param packFile Path or name of the .atlas file
+     */
+    public void loadAtlas(String packFile) {
+        loadAtlas(packFile, "i");
+    }
+
+    private void addAtlas(TextureAtlas atlas) {
+        // Regions in the same page share the sorting key, so they are batched together:
+        HashMap<Texture, Integer> pageKeys = new HashMap<Texture, Integer>();
+        for (TextureAtlas.AtlasRegion region : atlas.getRegions()) {
+            String name = "atlas:" + region.name;
+            if (textures.containsKey(name)) {
+                continue;// First atlas wins.
+            }
+            Integer key = pageKeys.get(region.getTexture());
+            if (key == null) {
+                key = nextTextureKey++;
+                pageKeys.put(region.getTexture(), key);
+            }
+            CachedTexture ct = new CachedTexture(name, region.name, "i", null, region, key);
+            ct.refs = 1;// Pinned while the atlas lives.
+            textures.put(name, ct);
+        }
+        atlasPages += atlas.getTextures().size;
+        atlases.add(atlas);
+    }
+
+    private String stripExtension(String fileNamePath) {
+        int dot = fileNamePath.lastIndexOf('.');
+        if (dot > fileNamePath.lastIndexOf('/')) {
+            return fileNamePath.substring(0, dot);
+        }
+        return fileNamePath;
+    }
+
+    private Texture.TextureFilter textureFilter(String mode) {
+        if (mode.equals("linear")) {
+            return Texture.TextureFilter.Linear;
+        }
+        return Texture.TextureFilter.Nearest;
+    }
+
+    /**
+     * Returns the cached texture for the given file, loading it if needed.
+     * Atlas regions are used first. The reference count is incremented,
+     * so each call needs a releaseTexture().<br/>
+     * Without a GL context (a headless Tabox2D building a scene) nothing is loaded,
+     * the entry only keeps the path
+     *
+     * @param fileNamePath Path or name of the file
+     * @param scope        Internal "i" or external "e"
+     * @return The cache entry
+     */
+    private CachedTexture acquireTexture(String fileNamePath, String scope) {
+        CachedTexture ct = textures.get("atlas:" + stripExtension(fileNamePath));
+        if (ct == null) {
+            String name = scope + ":" + filterMin + ":" + filterMag + ":" + fileNamePath;
+            ct = textures.get(name);
+            if (ct == null) {
+                Texture texture = null;
+                TextureRegion region = null;
+                if (Gdx.gl != null) {
+                    if (scope.equals("e")) {
+                        texture = new Texture(Gdx.files.external(fileNamePath));
+                    } else {
+                        texture = new Texture(Gdx.files.internal(fileNamePath));
+                    }
+                    texture.setFilter(textureFilter(filterMin), textureFilter(filterMag));
+                    region = new TextureRegion(texture);
+                }
+                ct = new CachedTexture(name, fileNamePath, scope, texture, region, nextTextureKey++);
+                textures.put(name, ct);
+            }
+        }
+        ct.refs++;
+        return ct;
+    }
+
+    /**
+     * Drops the texture reference of the given Tabody, the texture is disposed when unused
+     *
+     * @param t The Tabody
+     */
+    private void releaseTexture(Tabody t) {
+        CachedTexture ct = t.texture;
+        if (ct == null) {
+            return;
+        }
+        t.texture = null;
+        ct.refs--;
+        if (ct.refs == 0) {
+            if (ct.texture != null) {
+                ct.texture.dispose();
             }
+            textures.remove(ct.name);
+        }
+    }
+
+    /**
+     * A shared texture, keyed on path, scope and filter mode.<br/>
+     * Atlas regions have no texture of their own
+     */
+    private static class CachedTexture {
+        final String name;
+        final String path;
+        final String scope;
+        final Texture texture;
+        final TextureRegion region;
+        final int key;// Sorting key for the draw batch.
+        int refs;
+        int snapshotStamp;// Last snapshot that wrote it in its texture table.
+        int snapshotSlot;// Its position in that table.
+
+        CachedTexture(String name, String path, String scope, Texture texture, TextureRegion region, int key) {
+            this.name = name;
+            this.path = path;
+            this.scope = scope;
+            this.texture = texture;
+            this.region = region;
+            this.key = key;
         }
     }
 
@@ -807,6 +3608,20 @@ public class Tabox2D {
         return boundingRect;
     }
 
+    /**
+     * Prepares the shared definitions for a new body with default fixture values
+     *
+     * @param type "d", "s" or "k"
+     */
+    private void resetDefs(String type) {
+        sharedBodyDef.type = BodyDef.BodyType.StaticBody;
+        sharedBodyDef.angle = 0;
+        setType(sharedBodyDef, type);
+        sharedFixtureDef.density = 1;
+        sharedFixtureDef.friction = 1;
+        sharedFixtureDef.restitution = 0;
+    }
+
     private void setType(BodyDef def, String type) {
         type = type.toLowerCase();
         if (type.equals("d")) {
@@ -830,12 +3645,76 @@ public class Tabox2D {
      * It retains a box2d Body object, the body type and a Sprite
      */
     public class Tabody {
+        int id;// Stable handle, unique in this Tabox2D.
+        int index = -1;// Slot in the tabodies list, -1 if destroyed.
+        int moverIndex = -1;// Slot in the movers list, -1 if static.
+        boolean awake;// Awake in the last update().
+        boolean awakeListed;// In the awake set.
+        boolean dirty;// In the dirty list.
+        int drawSlot;// Position in the draw list.
+        int cullStamp;// Last culling pass that found this Tabody.
+        float cullReach;// Pixels from the body position the sprite can cover.
+        int queryStamp;// Last spatial query that found this Tabody.
+        int queryIndex;// Its position in the results of that query.
+        int contactBits = 1;// Contact event filter, like Box2D's category and mask.
+        int contactMask = -1;
+        boolean queued;// In the destroy queue.
+        boolean queuedFree;// Goes back to its pool when the queue is flushed.
+        PoolKey poolKey;// null if not made by obtainX().
+        boolean tuned;// Density, friction or restitution changed.
         Body body;
         String bodyType;// "circle", "rectangle" or "polygon".
         Sprite sprite;
-        FixtureDef fixture;
-        Vector2 velocity = Vector2.Zero;
+        // Constant velocity set by force(), applied after each step:
+        float velocityX, velocityY;
+        boolean hasVelocity;
         float w, h;
+        CachedTexture texture;
+        String texturePath;
+        String textureScope;
+        float textureGap;
+        // Current and previous physics states (meters, radians):
+        float x, y, angle;
+        float vx, vy;// Only tracked with the transform export on.
+        float prevX, prevY, prevAngle;
+        int sourceVertices;// Polygon points given before simplification, 0 = not simplified.
+
+        /**
+         * Sets both states to the body transform, so the next frame doesn't interpolate
+         */
+        void snap() {
+            Vector2 pos = body.getPosition();
+            x = prevX = pos.x;
+            y = prevY = pos.y;
+            angle = prevAngle = body.getAngle();
+            markDirty();
+        }
+
+        /**
+         * Clears the state left by a destroyed body, before reusing this Tabody
+         */
+        void reset() {
+            queued = false;
+            queuedFree = false;
+            poolKey = null;
+            sprite = null;
+            texturePath = null;
+            textureScope = null;
+            textureGap = 0;
+            awake = false;
+            dirty = false;
+            sourceVertices = 0;
+        }
+
+        /**
+         * Queues the sprite to be synced in the next update(), even if the body sleeps
+         */
+        void markDirty() {
+            if (!dirty) {
+                dirty = true;
+                Tabox2D.this.dirty.add(this);
+            }
+        }
 
         /**
          * Impuse in X axis
@@ -844,7 +3723,7 @@ public class Tabox2D {
          * @return This Tabody
          */
         public Tabody impulseX(float impulse) {
-            return impulse(new Vector2(impulse, 0));
+            return impulse(impulse, 0);
         }
 
         /**
@@ -854,7 +3733,7 @@ public class Tabox2D {
          * @return This Tabody
          */
         public Tabody impulseY(float impulse) {
-            return impulse(new Vector2(0, impulse));
+            return impulse(0, impulse);
         }
 
         /**
@@ -875,11 +3754,16 @@ public class Tabox2D {
          * @return This Tabody
          */
         public Tabody impulse(float ix, float iy) {
+            if (recording()) {
+                recorder.op(TaboxRecorder.IMPULSE, this, ix, iy);
+            }
             float forceMultiplier = 1;
             if (!rawForces) {
                 forceMultiplier = body.getMass();
             }
-            body.applyLinearImpulse(new Vector2(ix * forceMultiplier, iy * forceMultiplier), body.getWorldCenter(), true);
+            Vector2 center = body.getWorldCenter();// Reused by Body, no allocation.
+            body.applyLinearImpulse(ix * forceMultiplier, iy * forceMultiplier, center.x, center.y, true);
+            wake(this);
             return this;
         }
 
@@ -921,11 +3805,12 @@ public class Tabox2D {
          * @return This Tabody
          */
         public Tabody force(float fx, float fy) {
-            float forceMultiplier = 1;
-            if (!rawForces) {
-                forceMultiplier = body.getMass();
+            if (recording()) {
+                recorder.op(TaboxRecorder.FORCE, this, fx, fy);
             }
-            velocity = new Vector2(fx, fy);
+            velocityX = fx;
+            velocityY = fy;
+            hasVelocity = fx != 0 || fy != 0;
             return this;
         }
 
@@ -936,7 +3821,11 @@ public class Tabox2D {
          * @return This Tabody
          */
         public Tabody rotate(float degrees) {
+            if (recording()) {
+                recorder.op(TaboxRecorder.ROTATE, this, degrees);
+            }
             body.setTransform(body.getPosition(), MathUtils.degreesToRadians * degrees);
+            snap();
             return this;
         }
 
@@ -950,40 +3839,44 @@ public class Tabox2D {
          * @return Tabody object
          */
         public Tabody texture(String fileNamePath, String scope, float gap) {
-            Texture texture;
-            if (scope.toLowerCase().equals("i")) {
-                texture = new Texture(Gdx.files.internal(fileNamePath));
-            } else if (scope.toLowerCase().equals("e")) {
-                texture = new Texture(Gdx.files.external(fileNamePath));
-            } else {
+            scope = scope.toLowerCase();
+            if (!scope.equals("i") && !scope.equals("e")) {
                 System.err.println("setTexture(), second parameter must be 'i' or 'e', using 'i'");
-                texture = new Texture(Gdx.files.internal(fileNamePath));
-            }
-
-            // Filter for the setTexture:
-            Texture.TextureFilter tMin;
-            Texture.TextureFilter tMag;
-            if (filterMin.equals("linear")) {
-                tMin = Texture.TextureFilter.Linear;
-            } else {
-                tMin = Texture.TextureFilter.Nearest;
+                scope = "i";
             }
+            return bindTexture(acquireTexture(fileNamePath, scope), fileNamePath, scope, gap);
+        }
 
-            if (filterMag.equals("linear")) {
-                tMag = Texture.TextureFilter.Linear;
-            } else {
-                tMag = Texture.TextureFilter.Nearest;
+        /**
+         * Attaches an acquired texture, whose reference now belongs to this Tabody
+         */
+        Tabody bindTexture(CachedTexture ct, String fileNamePath, String scope, float gap) {
+            releaseTexture(this);
+            this.texture = ct;
+            this.texturePath = fileNamePath;
+            this.textureScope = scope;
+            this.textureGap = gap;
+            TextureRegion region = ct.region;
+            if (region == null) {
+                // Not loaded (no GL context), only the path is kept:
+                this.sprite = null;
+                drawOrderDirty = true;
+                return this;
             }
-            texture.setFilter(tMin, tMag);
 
-            this.sprite = new Sprite(texture);
+            this.sprite = new Sprite(region);
+            drawOrderDirty = true;
+            markDirty();
             float scaleX = this.w / this.sprite.getWidth() * gap;
             float scaleY = this.h / this.sprite.getHeight() * gap;
             float posX = this.body.getPosition().x * meterSize;
             float posY = this.body.getPosition().y * meterSize;
-            sprite.setOrigin(texture.getWidth() / 2, texture.getHeight() / 2);
+            sprite.setOrigin(region.getRegionWidth() / 2, region.getRegionHeight() / 2);
             sprite.setPosition(posX, posY);
             sprite.setScale(scaleX, scaleY);
+
+            // How far the sprite can reach from the fixtures, for culling:
+            cullReach = (float) (Math.hypot(w * gap, h * gap) / 2 + Math.hypot(w, h) / 2);
             return this;
         }
 
@@ -1015,9 +3908,13 @@ public class Tabox2D {
          * @return The same Tabody object
          */
         public Tabody density(float den) {
+            if (recording()) {
+                recorder.op(TaboxRecorder.DENSITY, this, den);
+            }
             for (Fixture f : this.body.getFixtureList()) {
                 f.setDensity(den);
             }
+            tuned = true;
             return this;
         }
 
@@ -1028,9 +3925,13 @@ public class Tabox2D {
          * @return The same Tabody object
          */
         public Tabody friction(float fri) {
+            if (recording()) {
+                recorder.op(TaboxRecorder.FRICTION, this, fri);
+            }
             for (Fixture f : this.body.getFixtureList()) {
                 f.setFriction(fri);
             }
+            tuned = true;
             return this;
         }
 
@@ -1041,14 +3942,104 @@ public class Tabox2D {
          * @return The same Tabody object
          */
         public Tabody restitution(float rest) {
+            if (recording()) {
+                recorder.op(TaboxRecorder.RESTITUTION, this, rest);
+            }
             for (Fixture f : this.body.getFixtureList()) {
                 f.setRestitution(rest);
             }
+            tuned = true;
             return this;
         }
 
         public float getMass() {
             return this.body.getMass();
         }
+
+        /**
+         * Sets which contact events are recorded for this Tabody (see setContactEvents()).<br/>
+         * A pair is recorded if each Tabody's bits match the other's mask
+         *
+         * @param bits Groups this Tabody belongs to (1 by default)
+         * @param mask Groups it reports contacts with (all by default, 0 = none)
+         * @return This Tabody
+         */
+        public Tabody contactFilter(int bits, int mask) {
+            contactBits = bits;
+            contactMask = mask;
+            return this;
+        }
+
+        /**
+         * Adds or removes the body from the simulation, without destroying it.<br/>
+         * Inactive bodies also leave the movers list, update() doesn't read them
+         *
+         * @param b false to take it out of collisions and steps
+         */
+        void setActive(boolean b) {
+            if (b == body.isActive()) {
+                return;
+            }
+            body.setActive(b);
+            if (b) {
+                addMover(this);
+                snap();
+            } else {
+                removeMover(this);
+                awake = false;
+            }
+        }
+
+        /**
+         * Get the stable handle of this Tabody
+         *
+         * @return Unique id in its Tabox2D instance
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Tells if this Tabody was destroyed (or combined into another one)
+         *
+         * @return true if it's no longer in the simulation
+         */
+        public boolean isDestroyed() {
+            return index < 0;
+        }
+
+        /**
+         * Get the number of vertices of the polygon fixtures, what collisions test
+         *
+         * @return Vertices of all the polygon fixtures, 0 if there are none
+         */
+        public int getVertexCount() {
+            int count = 0;
+            for (Fixture f : body.getFixtureList()) {
+                if (f.getShape() instanceof PolygonShape) {
+                    count += ((PolygonShape) f.getShape()).getVertexCount();
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Get the number of polygon points this Tabody was made from, before
+         * simplification and convex splitting (see setSimplify())
+         *
+         * @return Points given to newPoly() (or of the combined parts), getVertexCount() if unknown
+         */
+        public int getSourceVertexCount() {
+            return sourceVertices > 0 ? sourceVertices : getVertexCount();
+        }
+
+        /**
+         * Get the texture region drawn by this Tabody (a whole texture or an atlas region)
+         *
+         * @return The region, null if no texture was attached
+         */
+        public TextureRegion getTextureRegion() {
+            return texture == null ? null : texture.region;
+        }
     }
 }
@@ -0,0 +1,240 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * TaboxAtlas, packs images into atlas pages so Tabox2D can draw a whole scene
+ * with one or two texture binds.<br/>
+ * Packing only needs Pixmaps, textures are created in generateTextureAtlas()
+ */
+public class TaboxAtlas implements Disposable {
+
+    private final int pageSize;
+    private final int padding;
+    private final PixmapPacker packer;
+    private final List<Entry> pending;
+    private final List<String> names;
+    private long usedPixels;
+
+    /**
+     * Creates an empty atlas
+     *
+     * @param pageSize Width and height of each page in pixels
+     * @param padding  Empty pixels between images (avoids bleeding with linear filter)
+     */
+    public TaboxAtlas(int pageSize, int padding) {
+        this.pageSize = pageSize;
+        this.padding = padding;
+        packer = new PixmapPacker(pageSize, pageSize, Pixmap.Format.RGBA8888, padding, false,
+                new PixmapPacker.SkylineStrategy());
+        pending = new ArrayList<Entry>();
+        names = new ArrayList<String>();
+    }
+
+    /**
+     * Queues an image to be packed, the atlas takes ownership of the Pixmap
+     *
+     * @param name   Region name
+     * @param pixmap The image
+     * @return false if the image doesn't fit in a page or the name is taken
+     */
+    public boolean add(String name, Pixmap pixmap) {
+        int max = pageSize - padding * 2;
+        if (pixmap.getWidth() > max || pixmap.getHeight() > max) {
+            System.err.println("TaboxAtlas.add(), " + name + " is bigger than the page size, skipping");
+            pixmap.dispose();
+            return false;
+        }
+        if (contains(name)) {
+            pixmap.dispose();
+            return false;
+        }
+        pending.add(new Entry(name, pixmap));
+        return true;
+    }
+
+    /**
+     * Packs the queued images. They are sorted by size (then by name) first,
+     * so the same set of images always gets the same pages and UVs
+     */
+    public void pack() {
+        Collections.sort(pending, BY_SIZE);
+        for (Entry e : pending) {
+            packer.pack(e.name, e.pixmap);
+            usedPixels += (long) e.pixmap.getWidth() * e.pixmap.getHeight();
+            names.add(e.name);
+            e.pixmap.dispose();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Tells if the given region was queued or packed
+     *
+     * @param name Region name
+     * @return true if the name is in the atlas
+     */
+    public boolean contains(String name) {
+        if (names.contains(name)) {
+            return true;
+        }
+        for (Entry e : pending) {
+            if (e.name.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the names of the packed regions, in packing order
+     *
+     * @return List of names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Get the number of pages used
+     *
+     * @return Page count
+     */
+    public int getPageCount() {
+        return packer.getPages().size;
+    }
+
+    /**
+     * Get the fraction of the page area covered by images
+     *
+     * @return From 0 to 1
+     */
+    public float getFillRate() {
+        int pages = getPageCount();
+        if (pages == 0) {
+            return 0;
+        }
+        return (float) ((double) usedPixels / ((double) pages * pageSize * pageSize));
+    }
+
+    /**
+     * Get the page where the given region was packed
+     *
+     * @param name Region name
+     * @return Page index, -1 if not packed
+     */
+    public int getPage(String name) {
+        return packer.getPageIndex(name);
+    }
+
+    /**
+     * Get the region bounds in page pixels
+     *
+     * @param name Region name
+     * @return The bounds, null if not packed
+     */
+    public Rectangle getRect(String name) {
+        int page = getPage(name);
+        if (page < 0) {
+            return null;
+        }
+        return packer.getPages().get(page).getRects().get(name);
+    }
+
+    /**
+     * Get the texture coordinates of the given region
+     *
+     * @param name Region name
+     * @param uv   Array of at least 4 floats, filled with u, v, u2, v2
+     * @return The uv array, null if not packed
+     */
+    public float[] getUV(String name, float[] uv) {
+        Rectangle rect = getRect(name);
+        if (rect == null) {
+            return null;
+        }
+        uv[0] = rect.x / pageSize;
+        uv[1] = rect.y / pageSize;
+        uv[2] = (rect.x + rect.width) / pageSize;
+        uv[3] = (rect.y + rect.height) / pageSize;
+        return uv;
+    }
+
+    /**
+     * Uploads the pages to the GPU, needs a GL context
+     *
+     * @param min The minimize filter
+     * @param mag The magnify filter
+     * @return A TextureAtlas with one region per packed image
+     */
+    public TextureAtlas generateTextureAtlas(Texture.TextureFilter min, Texture.TextureFilter mag) {
+        return packer.generateTextureAtlas(min, mag, false);
+    }
+
+    /**
+     * Disposes the page pixmaps and the queued images
+     */
+    @Override
+    public void dispose() {
+        for (Entry e : pending) {
+            e.pixmap.dispose();
+        }
+        pending.clear();
+        packer.dispose();
+    }
+
+    private static final Comparator<Entry> BY_SIZE = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            int ha = a.pixmap.getHeight(), hb = b.pixmap.getHeight();
+            if (ha != hb) {
+                return hb - ha;
+            }
+            int wa = a.pixmap.getWidth(), wb = b.pixmap.getWidth();
+            if (wa != wb) {
+                return wb - wa;
+            }
+            return a.name.compareTo(b.name);
+        }
+    };
+
+    private static class Entry {
+        final String name;
+        final Pixmap pixmap;
+
+        Entry(String name, Pixmap pixmap) {
+            this.name = name;
+            this.pixmap = pixmap;
+        }
+    }
+}
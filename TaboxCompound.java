@@ -0,0 +1,308 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TaboxCompound, a template of a body made of many shapes, in pixels.<br/>
+ * Tabox2D.newCompound() makes one body with a fixture per shape in a single pass, unlike
+ * combine() there are no temporary bodies. The template is converted to meters (and its
+ * polygons split into convex pieces) on the first spawn and reused by the next ones:
+ * <pre>
+ * TaboxCompound cart = new TaboxCompound()
+ *         .box(0, 20, 120, 30)
+ *         .ball(20, 10, 10)
+ *         .ball(100, 10, 10);
+ * tabox.newCompound("d", cart, 200, 300);
+ * </pre>
+ */
+public class TaboxCompound {
+
+    static final byte BALL = 0, BOX = 1, POLY = 2;
+
+    private final List<Part> parts;
+    private float density = 1;
+    private float friction = 1;
+    private float restitution = 0;
+    private volatile Baked baked;// Last conversion, replaced when the shapes or settings change.
+
+    /**
+     * Creates an empty template
+     */
+    public TaboxCompound() {
+        parts = new ArrayList<Part>();
+    }
+
+    /**
+     * Adds a circle
+     *
+     * @param x Center X, relative to the spawn point
+     * @param y Center Y, relative to the spawn point
+     * @param r Radius
+     * @return This template
+     */
+    public TaboxCompound ball(float x, float y, float r) {
+        return add(BALL, new float[]{x, y, r});
+    }
+
+    /**
+     * Adds a box
+     *
+     * @param x Left-bottom corner X, relative to the spawn point
+     * @param y Left-bottom corner Y, relative to the spawn point
+     * @param w Width of the box
+     * @param h Height of the box
+     * @return This template
+     */
+    public TaboxCompound box(float x, float y, float w, float h) {
+        return add(BOX, new float[]{x, y, w, h});
+    }
+
+    /**
+     * Adds a polygon, concave or with many points, like newPoly()
+     *
+     * @param pts Points relative to the spawn point, in order (either winding), they are copied
+     * @return This template
+     */
+    public TaboxCompound poly(float[] pts) {
+        if (pts.length < 6) {
+            System.err.println("TaboxCompound.poly(), at least 3 points are needed");
+            return this;
+        }
+        return add(POLY, pts.clone());
+    }
+
+    /**
+     * Sets the fixture values of the shapes added after this call
+     *
+     * @param density     Density (1 by default)
+     * @param friction    Friction (1 by default)
+     * @param restitution Restitution (0 by default)
+     * @return This template
+     */
+    public TaboxCompound material(float density, float friction, float restitution) {
+        this.density = density;
+        this.friction = friction;
+        this.restitution = restitution;
+        return this;
+    }
+
+    /**
+     * Get the number of shapes added
+     *
+     * @return Shape count
+     */
+    public int getShapeCount() {
+        return parts.size();
+    }
+
+    private TaboxCompound add(byte kind, float[] values) {
+        parts.add(new Part(kind, values, density, friction, restitution));
+        baked = null;
+        return this;
+    }
+
+    /**
+     * Get the template in meters for the given Tabox2D settings, converted if needed
+     */
+    Baked bake(Tabox2D tabox, float tolerance, float collinear, float areaError) {
+        float meterSize = tabox.getMeterSize();
+        Baked b = baked;
+        if (b != null && b.meterSize == meterSize && b.tolerance == tolerance
+                && b.collinear == collinear && b.areaError == areaError) {
+            return b;
+        }
+        b = new Baked(meterSize, tolerance, collinear, areaError);
+
+        // AABB of every shape, the body goes at its center (like combine()):
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < parts.size(); i++) {
+            Part p = parts.get(i);
+            float[] v = p.values;
+            if (p.kind == BALL) {
+                minX = Math.min(minX, v[0] - v[2]);
+                minY = Math.min(minY, v[1] - v[2]);
+                maxX = Math.max(maxX, v[0] + v[2]);
+                maxY = Math.max(maxY, v[1] + v[2]);
+            } else if (p.kind == BOX) {
+                minX = Math.min(minX, v[0]);
+                minY = Math.min(minY, v[1]);
+                maxX = Math.max(maxX, v[0] + v[2]);
+                maxY = Math.max(maxY, v[1] + v[3]);
+            } else {
+                for (int j = 0; j < v.length; j += 2) {
+                    minX = Math.min(minX, v[j]);
+                    minY = Math.min(minY, v[j + 1]);
+                    maxX = Math.max(maxX, v[j]);
+                    maxY = Math.max(maxY, v[j + 1]);
+                }
+            }
+        }
+        b.w = maxX - minX;
+        b.h = maxY - minY;
+        float cx = (minX + maxX) / 2;
+        float cy = (minY + maxY) / 2;
+        b.centerX = cx / meterSize;
+        b.centerY = cy / meterSize;
+
+        // Fixtures, relative to the body:
+        float[] piece = new float[Tabox2D.MAX_POLYGON_VERTICES * 2];
+        for (int i = 0; i < parts.size(); i++) {
+            Part p = parts.get(i);
+            float[] v = p.values;
+            if (p.kind == BALL) {
+                b.add(Tabox2D.SHAPE_CIRCLE, p, new float[]{(v[0] - cx) / meterSize, (v[1] - cy) / meterSize, v[2] / meterSize});
+            } else if (p.kind == BOX) {
+                float x0 = (v[0] - cx) / meterSize, y0 = (v[1] - cy) / meterSize;
+                float x1 = x0 + v[2] / meterSize, y1 = y0 + v[3] / meterSize;
+                b.add(Tabox2D.SHAPE_POLYGON, p, new float[]{x0, y0, x1, y0, x1, y1, x0, y1});
+                b.sourceVertices += 4;
+            } else {
+                int[][] pieces = tabox.decomposition(v, tolerance, collinear, areaError);
+                for (int[] indices : pieces) {
+                    for (int j = 0; j < indices.length; j++) {
+                        piece[j * 2] = (v[indices[j] * 2] - cx) / meterSize;
+                        piece[j * 2 + 1] = (v[indices[j] * 2 + 1] - cy) / meterSize;
+                    }
+                    if (Tabox2D.isSolidPiece(piece, indices.length)) {
+                        float[] vertices = new float[indices.length * 2];
+                        System.arraycopy(piece, 0, vertices, 0, vertices.length);
+                        b.add(Tabox2D.SHAPE_POLYGON, p, vertices);
+                    }
+                }
+                b.sourceVertices += v.length / 2;
+            }
+        }
+        baked = b;
+        return b;
+    }
+
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+    //  Recording:
+    ///////////////////////////////////////////////////////////////
+    ///////////////////////////////////////////////////////////////
+
+    /**
+     * Get the size of the template written by write()
+     */
+    int getSize() {
+        int size = 4;
+        for (int i = 0; i < parts.size(); i++) {
+            size += 1 + 12 + 4 + parts.get(i).values.length * 4;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the shapes: count, then kind, density, friction, restitution and values of each
+     */
+    void write(ByteBuffer buffer) {
+        buffer.putInt(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            Part p = parts.get(i);
+            buffer.put(p.kind);
+            buffer.putFloat(p.density);
+            buffer.putFloat(p.friction);
+            buffer.putFloat(p.restitution);
+            buffer.putInt(p.values.length);
+            for (int j = 0; j < p.values.length; j++) {
+                buffer.putFloat(p.values[j]);
+            }
+        }
+    }
+
+    /**
+     * Reads a template written by write()
+     */
+    static TaboxCompound read(ByteBuffer buffer) {
+        TaboxCompound compound = new TaboxCompound();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte kind = buffer.get();
+            compound.material(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+            float[] values = new float[buffer.getInt()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = buffer.getFloat();
+            }
+            compound.add(kind, values);
+        }
+        return compound;
+    }
+
+    /**
+     * A shape of the template, in pixels
+     */
+    private static class Part {
+        final byte kind;
+        final float[] values;// Ball: x, y, r. Box: x, y, w, h. Poly: points.
+        final float density, friction, restitution;
+
+        Part(byte kind, float[] values, float density, float friction, float restitution) {
+            this.kind = kind;
+            this.values = values;
+            this.density = density;
+            this.friction = friction;
+            this.restitution = restitution;
+        }
+    }
+
+    /**
+     * The template in meters, ready to spawn: fixtures relative to the body center
+     */
+    static class Baked {
+        final float meterSize, tolerance, collinear, areaError;
+        final List<float[]> shapes;// Circle: x, y, r. Polygon: vertices.
+        byte[] kinds;// Tabox2D.SHAPE_CIRCLE or SHAPE_POLYGON.
+        float[] materials;// Density, friction and restitution of each fixture.
+        float centerX, centerY;// Body position, relative to the spawn point.
+        float w, h;// Pixels.
+        int sourceVertices;
+
+        Baked(float meterSize, float tolerance, float collinear, float areaError) {
+            this.meterSize = meterSize;
+            this.tolerance = tolerance;
+            this.collinear = collinear;
+            this.areaError = areaError;
+            shapes = new ArrayList<float[]>();
+            kinds = new byte[8];
+            materials = new float[24];
+        }
+
+        void add(byte kind, Part part, float[] shape) {
+            int i = shapes.size();
+            if (i == kinds.length) {
+                kinds = Arrays.copyOf(kinds, i * 2);
+                materials = Arrays.copyOf(materials, i * 6);
+            }
+            kinds[i] = kind;
+            materials[i * 3] = part.density;
+            materials[i * 3 + 1] = part.friction;
+            materials[i * 3 + 2] = part.restitution;
+            shapes.add(shape);
+        }
+    }
+}
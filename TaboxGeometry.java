@@ -0,0 +1,409 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import com.badlogic.gdx.math.EarClippingTriangulator;
+import com.badlogic.gdx.utils.ShortArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * TaboxGeometry, polygon helpers for the Tabox2D factories.<br/>
+ * Points are packed as x0, y0, x1, y1... and pieces are returned as vertex indices,
+ * so the result of an outline applies to any copy of it (moved or scaled)
+ */
+public final class TaboxGeometry {
+
+    private TaboxGeometry() {
+    }
+
+    /**
+     * Tells if a polygon is convex, with either winding. Collinear vertices are allowed
+     *
+     * @param pts Polygon points
+     * @return True if convex
+     */
+    public static boolean isConvex(float[] pts) {
+        int n = pts.length / 2;
+        int sign = 0;
+        for (int i = 0; i < n; i++) {
+            float cross = cross(pts, i, (i + 1) % n, (i + 2) % n);
+            if (cross != 0) {
+                int s = cross > 0 ? 1 : -1;
+                if (sign != 0 && s != sign) {
+                    return false;
+                }
+                sign = s;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a simple polygon (concave or not, either winding) into convex pieces of at
+     * most maxVertices each.<br/>
+     * The polygon is triangulated by ear clipping, then the diagonals are removed, longest
+     * first, whenever the two pieces they split make a convex piece small enough
+     * (Hertel-Mehlhorn). Convex polygons that already fit are returned as one piece
+     *
+     * @param pts         Polygon points
+     * @param maxVertices Max vertices per piece, 3 or more
+     * @return Counterclockwise pieces, as indices of the vertices in pts
+     */
+    public static int[][] decompose(float[] pts, int maxVertices) {
+        int n = pts.length / 2;
+        boolean ccw = signedArea(pts) >= 0;
+        if (n <= maxVertices && isConvex(pts)) {
+            int[] piece = new int[n];
+            for (int i = 0; i < n; i++) {
+                piece[i] = ccw ? i : n - 1 - i;
+            }
+            return new int[][]{piece};
+        }
+
+        // Triangles, as the first pieces:
+        ShortArray triangles = new EarClippingTriangulator().computeTriangles(pts);
+        List<int[]> pieces = new ArrayList<int[]>();
+        for (int i = 0; i + 2 < triangles.size; i += 3) {
+            int a = triangles.get(i), b = triangles.get(i + 1), c = triangles.get(i + 2);
+            float cross = cross(pts, a, b, c);
+            if (cross > 0) {
+                pieces.add(new int[]{a, b, c});
+            } else if (cross < 0) {
+                pieces.add(new int[]{a, c, b});
+            }
+            // Zero area triangles (collinear points) are dropped.
+        }
+
+        // Diagonals: edges shared by two triangles.
+        List<int[]> diagonals = new ArrayList<int[]>();// {from, to, piece, other piece}
+        for (int p = 0; p < pieces.size(); p++) {
+            int[] tri = pieces.get(p);
+            for (int e = 0; e < 3; e++) {
+                int from = tri[e], to = tri[(e + 1) % 3];
+                if (from < to) {
+                    for (int q = 0; q < pieces.size(); q++) {
+                        if (q != p && hasEdge(pieces.get(q), to, from)) {
+                            diagonals.add(new int[]{from, to, p, q});
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        final float[] points = pts;
+        Collections.sort(diagonals, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return Float.compare(lengthSquared(points, b[0], b[1]), lengthSquared(points, a[0], a[1]));
+            }
+        });
+
+        // Merge, the pieces of a merge are found through owner (union-find):
+        int[] owner = new int[pieces.size()];
+        for (int i = 0; i < owner.length; i++) {
+            owner[i] = i;
+        }
+        for (int i = 0; i < diagonals.size(); i++) {
+            int[] d = diagonals.get(i);
+            int p = find(owner, d[2]);
+            int q = find(owner, d[3]);
+            if (p == q) {
+                continue;
+            }
+            int[] merged = merge(pieces.get(p), pieces.get(q), d[0], d[1]);
+            if (merged != null && merged.length <= maxVertices && isConvex(pts, merged)) {
+                pieces.set(p, merged);
+                pieces.set(q, null);
+                owner[q] = p;
+            }
+        }
+
+        List<int[]> result = new ArrayList<int[]>();
+        for (int i = 0; i < pieces.size(); i++) {
+            if (pieces.get(i) != null) {
+                result.add(pieces.get(i));
+            }
+        }
+        return result.toArray(new int[result.size()][]);
+    }
+
+    /**
+     * Simplifies a polygon outline, keeping a subset of its vertices:<br/>
+     * - Ramer-Douglas-Peucker: vertices closer than tolerance to the simplified outline go.<br/>
+     * - Near-collinear merge: vertices whose edges turn less than collinearDegrees go.<br/>
+     * If the area changes more than maxAreaError (relative), both limits are halved and
+     * it's tried again, after a few tries the outline is kept as it is
+     *
+     * @param pts              Polygon points
+     * @param tolerance        Max distance from a removed vertex to the new outline, 0 = no RDP
+     * @param collinearDegrees Max turn of a removed vertex, 0 = no merge
+     * @param maxAreaError     Max relative area change, e.g. 0.05 for 5%
+     * @return Indices of the kept vertices, in order (at least 3)
+     */
+    public static int[] simplify(float[] pts, float tolerance, float collinearDegrees, float maxAreaError) {
+        int n = pts.length / 2;
+        float area = Math.abs(signedArea(pts));
+        float sin = (float) Math.sin(Math.toRadians(collinearDegrees));
+        boolean[] keep = new boolean[n];
+        int[] stack = new int[n * 2 + 2];
+        for (int attempt = 0; attempt < 6 && n > 3; attempt++) {
+            int count = simplify(pts, keep, stack, tolerance, sin);
+            if (count >= 3) {
+                int[] kept = new int[count];
+                for (int i = 0, k = 0; i < n; i++) {
+                    if (keep[i]) {
+                        kept[k++] = i;
+                    }
+                }
+                if (Math.abs(Math.abs(signedArea(pts, kept)) - area) <= maxAreaError * area) {
+                    return kept;
+                }
+            }
+            tolerance /= 2;
+            sin /= 2;
+        }
+        int[] all = new int[n];
+        for (int i = 0; i < n; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    /**
+     * Marks the vertices kept by one simplification pass
+     *
+     * @return Number of vertices kept
+     */
+    private static int simplify(float[] pts, boolean[] keep, int[] stack, float tolerance, float sin) {
+        int n = keep.length;
+        Arrays.fill(keep, tolerance <= 0);
+        if (tolerance > 0) {
+            // Closed outline: split at the vertex farthest from the first one, then RDP each chain.
+            int far = 0;
+            for (int i = 1; i < n; i++) {
+                if (lengthSquared(pts, 0, i) > lengthSquared(pts, 0, far)) {
+                    far = i;
+                }
+            }
+            keep[0] = true;
+            keep[far] = true;
+            int top = 0;
+            stack[top++] = 0;
+            stack[top++] = far;
+            stack[top++] = far;
+            stack[top++] = n;// n is vertex 0 again.
+            while (top > 0) {
+                int last = stack[--top];
+                int first = stack[--top];
+                int worst = -1;
+                float worstDistance = tolerance;
+                for (int i = first + 1; i < last; i++) {
+                    float d = distanceToSegment(pts, i, first % n, last % n);
+                    if (d > worstDistance) {
+                        worst = i;
+                        worstDistance = d;
+                    }
+                }
+                if (worst >= 0) {
+                    keep[worst] = true;
+                    stack[top++] = first;
+                    stack[top++] = worst;
+                    stack[top++] = worst;
+                    stack[top++] = last;
+                }
+            }
+        }
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                count++;
+            }
+        }
+        // Near-collinear merge, on what RDP kept:
+        boolean merged = sin > 0;
+        while (merged && count > 3) {
+            merged = false;
+            for (int i = 0; i < n && count > 3; i++) {
+                if (keep[i]) {
+                    int prev = i, next = i;
+                    do {
+                        prev = (prev + n - 1) % n;
+                    } while (!keep[prev]);
+                    do {
+                        next = (next + 1) % n;
+                    } while (!keep[next]);
+                    float cross = cross(pts, prev, i, next);
+                    float dot = (pts[i * 2] - pts[prev * 2]) * (pts[next * 2] - pts[i * 2])
+                            + (pts[i * 2 + 1] - pts[prev * 2 + 1]) * (pts[next * 2 + 1] - pts[i * 2 + 1]);
+                    float lengths = (float) Math.sqrt(lengthSquared(pts, prev, i) * lengthSquared(pts, i, next));
+                    if (dot > 0 && Math.abs(cross) <= sin * lengths) {
+                        keep[i] = false;
+                        count--;
+                        merged = true;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static float distanceToSegment(float[] pts, int p, int a, int b) {
+        float abx = pts[b * 2] - pts[a * 2], aby = pts[b * 2 + 1] - pts[a * 2 + 1];
+        float apx = pts[p * 2] - pts[a * 2], apy = pts[p * 2 + 1] - pts[a * 2 + 1];
+        float length2 = abx * abx + aby * aby;
+        float t = length2 == 0 ? 0 : Math.max(0, Math.min(1, (apx * abx + apy * aby) / length2));
+        float dx = apx - abx * t, dy = apy - aby * t;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static float signedArea(float[] pts, int[] piece) {
+        float area = 0;
+        int n = piece.length;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            area += pts[piece[j] * 2] * pts[piece[i] * 2 + 1] - pts[piece[i] * 2] * pts[piece[j] * 2 + 1];
+        }
+        return area / 2;
+    }
+
+    /**
+     * Get the signed area of a polygon, positive if counterclockwise
+     *
+     * @param pts Polygon points
+     * @return Signed area
+     */
+    public static float signedArea(float[] pts) {
+        float area = 0;
+        int n = pts.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            area += pts[j * 2] * pts[i * 2 + 1] - pts[i * 2] * pts[j * 2 + 1];
+        }
+        return area / 2;
+    }
+
+    /**
+     * Joins two counterclockwise pieces along their shared edge (from, to)
+     *
+     * @return The joined piece, null if the edge isn't shared
+     */
+    private static int[] merge(int[] p, int[] q, int from, int to) {
+        int pi = edgeStart(p, from, to);
+        int qi = edgeStart(q, to, from);
+        if (pi < 0 || qi < 0) {
+            return null;
+        }
+        // p from the end of the edge around to its start, then the rest of q:
+        int[] merged = new int[p.length + q.length - 2];
+        int k = 0;
+        for (int i = 0; i < p.length; i++) {
+            merged[k++] = p[(pi + 1 + i) % p.length];
+        }
+        for (int i = 2; i < q.length; i++) {
+            merged[k++] = q[(qi + i) % q.length];
+        }
+        return merged;
+    }
+
+    private static int edgeStart(int[] piece, int from, int to) {
+        for (int i = 0; i < piece.length; i++) {
+            if (piece[i] == from && piece[(i + 1) % piece.length] == to) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasEdge(int[] piece, int from, int to) {
+        return edgeStart(piece, from, to) >= 0;
+    }
+
+    private static boolean isConvex(float[] pts, int[] piece) {
+        int n = piece.length;
+        for (int i = 0; i < n; i++) {
+            if (cross(pts, piece[i], piece[(i + 1) % n], piece[(i + 2) % n]) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int find(int[] owner, int i) {
+        while (owner[i] != i) {
+            owner[i] = owner[owner[i]];
+            i = owner[i];
+        }
+        return i;
+    }
+
+    // Cross product of (b - a) and (c - b), positive on a left turn:
+    private static float cross(float[] pts, int a, int b, int c) {
+        float abx = pts[b * 2] - pts[a * 2], aby = pts[b * 2 + 1] - pts[a * 2 + 1];
+        float bcx = pts[c * 2] - pts[b * 2], bcy = pts[c * 2 + 1] - pts[b * 2 + 1];
+        return abx * bcy - aby * bcx;
+    }
+
+    private static float lengthSquared(float[] pts, int a, int b) {
+        float dx = pts[b * 2] - pts[a * 2], dy = pts[b * 2 + 1] - pts[a * 2 + 1];
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Key of a polygon outline for caches: the points relative to the first one,
+     * so the same outline anywhere has the same key
+     */
+    static final class OutlineKey {
+        private final float[] relative;
+        private final int hash;
+
+        private final float tolerance, collinear, areaError;// Simplification settings.
+
+        OutlineKey(float[] pts, float tolerance, float collinear, float areaError) {
+            relative = new float[pts.length];
+            for (int i = 0; i < pts.length; i += 2) {
+                relative[i] = pts[i] - pts[0];
+                relative[i + 1] = pts[i + 1] - pts[1];
+            }
+            this.tolerance = tolerance;
+            this.collinear = collinear;
+            this.areaError = areaError;
+            hash = 31 * Arrays.hashCode(relative) + Float.floatToIntBits(tolerance);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof OutlineKey)) {
+                return false;
+            }
+            OutlineKey k = (OutlineKey) o;
+            return k.tolerance == tolerance && k.collinear == collinear && k.areaError == areaError
+                    && Arrays.equals(relative, k.relative);
+        }
+    }
+}
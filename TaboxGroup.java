@@ -0,0 +1,152 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * TaboxGroup, steps many independent Tabox2D instances in parallel.<br/>
+ * update() returns when every world is done, so it's safe to draw or read them after it
+ */
+public class TaboxGroup {
+
+    private final ExecutorService executor;
+    private final List<StepTask> tasks;
+
+    /**
+     * Creates an empty group stepped on the common fork-join pool
+     */
+    public TaboxGroup() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an empty group stepped on the given executor
+     *
+     * @param executor Runs one task per world and update()
+     */
+    public TaboxGroup(ExecutorService executor) {
+        this.executor = executor;
+        this.tasks = new ArrayList<StepTask>();
+    }
+
+    /**
+     * Adds a world to the group
+     *
+     * @param world An independent Tabox2D instance
+     */
+    public void add(Tabox2D world) {
+        tasks.add(new StepTask(world));
+    }
+
+    /**
+     * Removes a world from the group, it's not disposed
+     *
+     * @param world The Tabox2D instance
+     */
+    public void remove(Tabox2D world) {
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).world == world) {
+                tasks.remove(i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of worlds in the group
+     *
+     * @return World count
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Get a world of the group
+     *
+     * @param index Index, in order of addition
+     * @return The Tabox2D instance
+     */
+    public Tabox2D get(int index) {
+        return tasks.get(index).world;
+    }
+
+    /**
+     * Updates every world with the given delta time, in parallel
+     *
+     * @param delta The delta time to simulate
+     */
+    public void update(float delta) {
+        if (tasks.size() == 1) {
+            tasks.get(0).world.update(delta);
+            return;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).delta = delta;
+        }
+        try {
+            // Barrier, invokeAll() waits for every task:
+            List<Future<Object>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                results.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("TaboxGroup.update() interrupted", e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("TaboxGroup.update() failed", e.getCause());
+        }
+    }
+
+    /**
+     * Disposes every world in the group
+     */
+    public void dispose() {
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).world.dispose();
+        }
+        tasks.clear();
+    }
+
+    private static class StepTask implements Callable<Object> {
+        final Tabox2D world;
+        float delta;
+
+        StepTask(Tabox2D world) {
+            this.world = world;
+        }
+
+        @Override
+        public Object call() {
+            world.update(delta);
+            return null;
+        }
+    }
+}
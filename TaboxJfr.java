@@ -0,0 +1,109 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR events of Tabox2D, recorded when profiling is on with JFR (Tabox2D.setProfiling(true, true)).<br/>
+ * Optional and Java 11+: Tabox2D loads it by name only in that case, so it can be left out
+ * on Java 8 or Android (where jdk.jfr doesn't exist)
+ */
+public final class TaboxJfr implements TaboxStats.FrameListener {
+
+    @Override
+    public void frame(long update, long step, long forces, long sync, int bodies, int awake) {
+        FrameEvent event = new FrameEvent();
+        if (event.shouldCommit()) {
+            event.update = update;
+            event.step = step;
+            event.forces = forces;
+            event.sync = sync;
+            event.bodies = bodies;
+            event.awake = awake;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void draw(long draw, int sprites, int drawCalls, int textureBinds) {
+        DrawEvent event = new DrawEvent();
+        if (event.shouldCommit()) {
+            event.draw = draw;
+            event.sprites = sprites;
+            event.drawCalls = drawCalls;
+            event.textureBinds = textureBinds;
+            event.commit();
+        }
+    }
+
+    @Name("tabox2d.Frame")
+    @Label("Tabox2D update")
+    @Category("Tabox2D")
+    @Description("Time spent in one Tabox2D.update()")
+    static class FrameEvent extends Event {
+        @Label("Update")
+        @Timespan(Timespan.NANOSECONDS)
+        long update;
+
+        @Label("World step")
+        @Timespan(Timespan.NANOSECONDS)
+        long step;
+
+        @Label("Forces")
+        @Timespan(Timespan.NANOSECONDS)
+        long forces;
+
+        @Label("Sprite sync")
+        @Timespan(Timespan.NANOSECONDS)
+        long sync;
+
+        @Label("Bodies")
+        int bodies;
+
+        @Label("Awake bodies")
+        int awake;
+    }
+
+    @Name("tabox2d.Draw")
+    @Label("Tabox2D draw")
+    @Category("Tabox2D")
+    @Description("Time spent in one Tabox2D.draw()")
+    static class DrawEvent extends Event {
+        @Label("Draw")
+        @Timespan(Timespan.NANOSECONDS)
+        long draw;
+
+        @Label("Sprites")
+        int sprites;
+
+        @Label("Draw calls")
+        int drawCalls;
+
+        @Label("Texture binds")
+        int textureBinds;
+    }
+}
@@ -0,0 +1,462 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * TaboxRecorder, logs every call that changes a Tabox2D (spawns, impulses, forces,
+ * rotations, destroys, combines and update() deltas) so the session can be replayed
+ * exactly.<br/>
+ * The log starts with a snapshot of the world and the step settings, and each
+ * update() stores a checksum of the bodies, so replay() finds the first step that
+ * diverges. Use it with setFixedStep(), variable steps aren't reproducible
+ */
+public class TaboxRecorder {
+
+    /**
+     * First int of a log ("TBXR")
+     */
+    public static final int MAGIC = 0x54425852;
+
+    // Operation codes:
+    static final byte STEP = 1, BALL = 2, BOX = 3, REGULAR_POLY = 4, POLY = 5,
+            OBTAIN_BALL = 6, OBTAIN_BOX = 7, OBTAIN_REGULAR_POLY = 8,
+            PREWARM_BALLS = 9, PREWARM_BOXES = 10, PREWARM_REGULAR_POLYS = 11,
+            FREE = 12, DESTROY = 13, DESTROY_LATER = 14, COMBINE = 15, RESTORE = 16,
+            IMPULSE = 17, FORCE = 18, ROTATE = 19, DENSITY = 20, FRICTION = 21, RESTITUTION = 22,
+            COMPOUND = 23;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ByteBuffer log;
+    private Tabox2D tabox;
+    private int steps;
+    private boolean checksums;
+    private int divergedStep;
+
+    /**
+     * Creates an empty recorder, start() it to record
+     */
+    public TaboxRecorder() {
+        log = ByteBuffer.allocate(64 * 1024);
+        checksums = true;
+    }
+
+    /**
+     * Creates a recorder from a saved log, ready to replay()
+     *
+     * @param saved The log, from its position to its limit (see getLog())
+     */
+    public TaboxRecorder(ByteBuffer saved) {
+        log = ByteBuffer.allocate(saved.remaining());
+        log.put(saved.duplicate());
+        checksums = true;
+    }
+
+    /**
+     * Computing a checksum reads every body after each update(), turn it off
+     * to record with less overhead (replay() can't check divergence then)
+     *
+     * @param b true to store checksums (default)
+     */
+    public void setChecksums(boolean b) {
+        this.checksums = b;
+    }
+
+    /**
+     * Starts recording the given simulation, the previous log is dropped.<br/>
+     * The simulation is restored from its own snapshot first, so it starts from the
+     * same Box2D state as a replay (Tabody handles stay valid, pools are emptied)
+     *
+     * @param tabox The simulation to record
+     */
+    public void start(Tabox2D tabox) {
+        stop();
+        log.clear();
+        steps = 0;
+        this.tabox = tabox;
+        ensure(24);
+        log.putInt(MAGIC);
+        log.putFloat(tabox.getMeterSize());
+        log.put((byte) (tabox.isRawForces() ? 1 : 0));
+        log.putFloat(tabox.getFixedStep());
+        log.putInt(tabox.getMaxSubSteps());
+        int size = tabox.getSnapshotSize();
+        ensure(4 + size);
+        log.putInt(size);
+        ByteBuffer snapshot = log.duplicate();
+        tabox.snapshot(log);
+        snapshot.limit(log.position());
+        tabox.restore(snapshot);
+        tabox.setRecorder(this);
+    }
+
+    /**
+     * Stops recording, the log is kept
+     */
+    public void stop() {
+        if (tabox != null) {
+            tabox.setRecorder(null);
+            tabox = null;
+        }
+    }
+
+    /**
+     * Get the number of update() calls in the log
+     *
+     * @return Steps recorded
+     */
+    public int getStepCount() {
+        return steps;
+    }
+
+    /**
+     * Get the log, to save it
+     *
+     * @return A read only view from the first to the last byte written
+     */
+    public ByteBuffer getLog() {
+        ByteBuffer view = log.duplicate();
+        view.flip();
+        return view.asReadOnlyBuffer();
+    }
+
+    /**
+     * Get the first step that didn't match the recorded checksum in the last replay()
+     *
+     * @return Step number, -1 if none
+     */
+    public int getDivergedStep() {
+        return divergedStep;
+    }
+
+    /**
+     * Replays the log into the given simulation, as fast as it can.<br/>
+     * The simulation is restored to the recorded start and gets the recorded step
+     * settings. It must have the same gravity, and must not be recording
+     *
+     * @param target Simulation to replay into
+     * @param verify true to compare the checksum after each step
+     * @return The number of steps replayed, -1 if the log is not valid
+     */
+    public int replay(Tabox2D target, boolean verify) {
+        divergedStep = -1;
+        ByteBuffer in = getLog();
+        if (in.remaining() < 17 || in.getInt() != MAGIC) {
+            System.err.println("TaboxRecorder.replay(), not a Tabox2D log");
+            return -1;
+        }
+        target.setMeterSize(in.getFloat());
+        target.setRawForces(in.get() != 0);
+        float fixedStep = in.getFloat();
+        target.setFixedStep(fixedStep, in.getInt());
+        int size = in.getInt();
+        ByteBuffer snapshot = in.slice();
+        snapshot.limit(size);
+        if (!target.restore(snapshot)) {
+            return -1;
+        }
+        in.position(in.position() + size);
+
+        HashMap<Integer, Tabox2D.Tabody> bodies = new HashMap<Integer, Tabox2D.Tabody>();
+        List<Tabox2D.Tabody> list = target.getTabodies();
+        for (int i = 0; i < list.size(); i++) {
+            bodies.put(list.get(i).getId(), list.get(i));
+        }
+        int step = 0;
+        while (in.hasRemaining()) {
+            byte op = in.get();
+            switch (op) {
+                case STEP:
+                    target.update(in.getFloat());
+                    boolean hasChecksum = in.get() != 0;
+                    long checksum = hasChecksum ? in.getLong() : 0;
+                    if (verify && hasChecksum && divergedStep < 0 && target.getStateChecksum() != checksum) {
+                        divergedStep = step;
+                        System.err.println("TaboxRecorder.replay(), diverged at step " + step);
+                    }
+                    step++;
+                    break;
+                case BALL:
+                    add(bodies, target.newBall(getString(in), in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                case BOX:
+                    add(bodies, target.newBox(getString(in), in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                case REGULAR_POLY:
+                    add(bodies, target.newRegularPoly(getString(in), in.getInt(), in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                case POLY: {
+                    String type = getString(in);
+                    float[] pts = new float[in.getInt()];
+                    for (int i = 0; i < pts.length; i++) {
+                        pts[i] = in.getFloat();
+                    }
+                    add(bodies, target.newPoly(type, pts, in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                }
+                case OBTAIN_BALL:
+                    add(bodies, target.obtainBall(getString(in), in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                case OBTAIN_BOX:
+                    add(bodies, target.obtainBox(getString(in), in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                case OBTAIN_REGULAR_POLY:
+                    add(bodies, target.obtainRegularPoly(getString(in), in.getInt(), in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                case PREWARM_BALLS:
+                    target.prewarmBalls(getString(in), in.getFloat(), in.getInt());
+                    break;
+                case PREWARM_BOXES:
+                    target.prewarmBoxes(getString(in), in.getFloat(), in.getFloat(), in.getInt());
+                    break;
+                case PREWARM_REGULAR_POLYS:
+                    target.prewarmRegularPolys(getString(in), in.getInt(), in.getFloat(), in.getInt());
+                    break;
+                case COMBINE: {
+                    String type = getString(in);
+                    Tabox2D.Tabody[] parts = new Tabox2D.Tabody[in.getInt()];
+                    for (int i = 0; i < parts.length; i++) {
+                        parts[i] = bodies.remove(in.getInt());
+                    }
+                    add(bodies, target.combine(type, in.getFloat(), in.getFloat(), in.getFloat(), parts));
+                    break;
+                }
+                case COMPOUND: {
+                    String type = getString(in);
+                    float x = in.getFloat();
+                    float y = in.getFloat();
+                    TaboxCompound compound = TaboxCompound.read(in);
+                    add(bodies, target.newCompound(type, compound, x, y, in.getFloat(), in.getFloat(), in.getFloat()));
+                    break;
+                }
+                case RESTORE: {
+                    ByteOrder order = in.get() != 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+                    int length = in.getInt();
+                    ByteBuffer restored = in.slice().order(order);
+                    restored.limit(length);
+                    target.restore(restored);
+                    in.position(in.position() + length);
+                    bodies.clear();
+                    for (int i = 0; i < list.size(); i++) {
+                        bodies.put(list.get(i).getId(), list.get(i));
+                    }
+                    break;
+                }
+                default:
+                    Tabox2D.Tabody t = bodies.get(in.getInt());
+                    if (t == null) {
+                        System.err.println("TaboxRecorder.replay(), unknown Tabody at step " + step + ", stopping");
+                        return step;
+                    }
+                    if (!replayTabodyOp(op, in, t, target)) {
+                        System.err.println("TaboxRecorder.replay(), unknown operation " + op + ", stopping");
+                        return step;
+                    }
+            }
+        }
+        return step;
+    }
+
+    private boolean replayTabodyOp(byte op, ByteBuffer in, Tabox2D.Tabody t, Tabox2D target) {
+        switch (op) {
+            case FREE:
+                target.free(t);
+                break;
+            case DESTROY:
+                target.destroy(t);
+                break;
+            case DESTROY_LATER:
+                target.destroyLater(t);
+                break;
+            case IMPULSE:
+                t.impulse(in.getFloat(), in.getFloat());
+                break;
+            case FORCE:
+                t.force(in.getFloat(), in.getFloat());
+                break;
+            case ROTATE:
+                t.rotate(in.getFloat());
+                break;
+            case DENSITY:
+                t.density(in.getFloat());
+                break;
+            case FRICTION:
+                t.friction(in.getFloat());
+                break;
+            case RESTITUTION:
+                t.restitution(in.getFloat());
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    private static void add(HashMap<Integer, Tabox2D.Tabody> bodies, Tabox2D.Tabody t) {
+        if (t != null) {
+            bodies.put(t.getId(), t);
+        }
+    }
+
+    // Called by Tabox2D while recording:
+
+    void step(float delta) {
+        ensure(14);
+        log.put(STEP);
+        log.putFloat(delta);
+        if (checksums) {
+            log.put((byte) 1);
+            log.putLong(tabox.getStateChecksum());
+        } else {
+            log.put((byte) 0);
+        }
+        steps++;
+    }
+
+    void spawn(byte op, String type, float a, float b, float c) {
+        putHeader(op, type, 12);
+        log.putFloat(a);
+        log.putFloat(b);
+        log.putFloat(c);
+    }
+
+    void spawn(byte op, String type, float a, float b, float c, float d) {
+        putHeader(op, type, 16);
+        log.putFloat(a);
+        log.putFloat(b);
+        log.putFloat(c);
+        log.putFloat(d);
+    }
+
+    void spawn(byte op, String type, int sides, float a, float b, float c) {
+        putHeader(op, type, 16);
+        log.putInt(sides);
+        log.putFloat(a);
+        log.putFloat(b);
+        log.putFloat(c);
+    }
+
+    void poly(String type, float[] pts, float tolerance, float collinear, float areaError) {
+        putHeader(POLY, type, 16 + pts.length * 4);
+        log.putInt(pts.length);
+        for (int i = 0; i < pts.length; i++) {
+            log.putFloat(pts[i]);
+        }
+        putSimplify(tolerance, collinear, areaError);
+    }
+
+    private void putSimplify(float tolerance, float collinear, float areaError) {
+        log.putFloat(tolerance);
+        log.putFloat(collinear);
+        log.putFloat(areaError);
+    }
+
+    void prewarm(byte op, String type, int sides, float a, float b, int count) {
+        putHeader(op, type, 16);
+        if (op == PREWARM_REGULAR_POLYS) {
+            log.putInt(sides);
+        }
+        log.putFloat(a);
+        if (op == PREWARM_BOXES) {
+            log.putFloat(b);
+        }
+        log.putInt(count);
+    }
+
+    void combine(String type, Tabox2D.Tabody[] parts, float tolerance, float collinear, float areaError) {
+        putHeader(COMBINE, type, 16 + parts.length * 4);
+        log.putInt(parts.length);
+        for (int i = 0; i < parts.length; i++) {
+            log.putInt(parts[i].getId());
+        }
+        putSimplify(tolerance, collinear, areaError);
+    }
+
+    void compound(String type, TaboxCompound compound, float x, float y,
+                  float tolerance, float collinear, float areaError) {
+        putHeader(COMPOUND, type, 20 + compound.getSize());
+        log.putFloat(x);
+        log.putFloat(y);
+        compound.write(log);
+        putSimplify(tolerance, collinear, areaError);
+    }
+
+    void restore(ByteBuffer snapshot) {
+        ensure(6 + snapshot.remaining());
+        log.put(RESTORE);
+        log.put((byte) (snapshot.order() == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+        log.putInt(snapshot.remaining());
+        log.put(snapshot.duplicate());
+    }
+
+    void op(byte op, Tabox2D.Tabody t) {
+        ensure(5);
+        log.put(op);
+        log.putInt(t.getId());
+    }
+
+    void op(byte op, Tabox2D.Tabody t, float a) {
+        ensure(9);
+        log.put(op);
+        log.putInt(t.getId());
+        log.putFloat(a);
+    }
+
+    void op(byte op, Tabox2D.Tabody t, float a, float b) {
+        ensure(13);
+        log.put(op);
+        log.putInt(t.getId());
+        log.putFloat(a);
+        log.putFloat(b);
+    }
+
+    private void putHeader(byte op, String type, int extra) {
+        byte[] bytes = type.getBytes(UTF8);
+        ensure(3 + bytes.length + extra);
+        log.put(op);
+        log.putShort((short) bytes.length);
+        log.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    /**
+     * Grows the log so the given bytes fit
+     */
+    private void ensure(int bytes) {
+        if (log.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(log.capacity() * 2, log.position() + bytes));
+            log.flip();
+            bigger.put(log);
+            log = bigger;
+        }
+    }
+}
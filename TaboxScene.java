@@ -0,0 +1,162 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+/**
+ * TaboxScene, a binary level file with the bodies already in meters: fixture vertices,
+ * density, friction, restitution, textures and compound bodies (one body, many fixtures).<br/>
+ * Build the level once with the usual calls (newBox(), newPoly(), combine()...) on a
+ * Tabox2D, save it with compile(), then load() maps the file and creates the bodies
+ * directly, with no unit conversion or AABB work.<br/>
+ * Same layout as Tabox2D.snapshot(), little endian
+ */
+public class TaboxScene {
+
+    /**
+     * First int of a scene file ("TBXS")
+     */
+    public static final int MAGIC = 0x54425853;
+
+    private static final int HEADER = 8;// Magic and meter size.
+
+    private TaboxScene() {
+    }
+
+    /**
+     * Writes every Tabody of the given Tabox2D to a scene file.<br/>
+     * It can be a headless one (new Tabox2D(gravity, width, height)) used only to build the level
+     *
+     * @param tabox Tabox2D with the level
+     * @param file  Destination file, it's replaced
+     * @return Bytes written, -1 on failure
+     */
+    public static int compile(Tabox2D tabox, FileHandle file) {
+        int size = HEADER + tabox.getBodiesSize();
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file.file(), "rw");
+            raf.setLength(size);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putFloat(tabox.getMeterSize());
+            tabox.writeBodies(buffer);
+            buffer.force();
+            return size;
+        } catch (IOException e) {
+            System.err.println("TaboxScene.compile(), can't write " + file.path() + ": " + e.getMessage());
+            return -1;
+        } finally {
+            close(raf);
+        }
+    }
+
+    /**
+     * Compiles a level made by the given builder on a headless Tabox2D
+     *
+     * @param builder   Makes the level bodies
+     * @param meterSize Meter size the level is written for
+     * @param file      Destination file, it's replaced
+     * @return Bytes written, -1 on failure
+     */
+    public static int compile(Builder builder, float meterSize, FileHandle file) {
+        Tabox2D tabox = new Tabox2D(new Vector2(0, -9.8f), 1, 1);
+        tabox.setMeterSize(meterSize);
+        builder.build(tabox);
+        int size = compile(tabox, file);
+        tabox.dispose();
+        return size;
+    }
+
+    /**
+     * Adds the bodies of a scene file to the given Tabox2D, they get new ids.<br/>
+     * The file is memory mapped, it must be a real file (not inside a jar)
+     *
+     * @param tabox Destination Tabox2D
+     * @param file  Scene file made by compile()
+     * @return The new Tabodies, empty on failure
+     */
+    public static Tabox2D.Tabody[] load(Tabox2D tabox, FileHandle file) {
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file.file(), "r");
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return load(tabox, buffer);
+        } catch (IOException e) {
+            System.err.println("TaboxScene.load(), can't read " + file.path() + ": " + e.getMessage());
+            return new Tabox2D.Tabody[0];
+        } finally {
+            close(raf);
+        }
+    }
+
+    /**
+     * Adds the bodies of a scene already in memory to the given Tabox2D, they get new ids
+     *
+     * @param tabox Destination Tabox2D
+     * @param scene Scene bytes, from its position
+     * @return The new Tabodies, empty on failure
+     */
+    public static Tabox2D.Tabody[] load(Tabox2D tabox, ByteBuffer scene) {
+        scene.order(ByteOrder.LITTLE_ENDIAN);
+        if (scene.remaining() < HEADER || scene.getInt() != MAGIC) {
+            System.err.println("TaboxScene.load(), not a Tabox2D scene");
+            return new Tabox2D.Tabody[0];
+        }
+        float meterSize = scene.getFloat();
+        int count = tabox.addBodies(scene, meterSize);
+        List<Tabox2D.Tabody> list = tabox.getTabodies();
+        Tabox2D.Tabody[] loaded = new Tabox2D.Tabody[count];
+        for (int i = 0; i < count; i++) {
+            loaded[i] = list.get(list.size() - count + i);
+        }
+        return loaded;
+    }
+
+    private static void close(RandomAccessFile raf) {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // Nothing to do.
+            }
+        }
+    }
+
+    /**
+     * Makes the bodies of a level, for compile()
+     */
+    public interface Builder {
+        void build(Tabox2D tabox);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import java.util.Arrays;
+
+/**
+ * TaboxStats, where the frames of a Tabox2D go: rolling timings of each section
+ * (last frames only) and counters of the simulation.<br/>
+ * Get it with Tabox2D.getStats() after Tabox2D.setProfiling(true), times are in nanoseconds
+ */
+public class TaboxStats {
+
+    /**
+     * Timed sections:<br/>
+     * UPDATE: the whole update() call<br/>
+     * STEP: world.step(), every substep of the frame<br/>
+     * FORCES: re-applying the constant velocities set by Tabody.force(), forceX() and forceY()
+     * after each substep. Impulses and forces applied by user code between frames are not in it<br/>
+     * SYNC: moving the sprites of the awake and changed Tabodies<br/>
+     * DRAW: the whole draw() call
+     */
+    public static final int UPDATE = 0, STEP = 1, FORCES = 2, SYNC = 3, DRAW = 4;
+
+    private static final String[] NAMES = {"update", "step", "forces", "sync", "draw"};
+
+    private final long[][] samples;// Ring of the last frames, per section.
+    private final int[] counts;
+    private final int[] cursors;
+    private final long[] sorted;
+    private int sortedSection = -1;
+
+    // Counters, refreshed by Tabox2D.getStats():
+    int staticBodies;
+    int kinematicBodies;
+    int dynamicBodies;
+    int awakeBodies;
+    int fixtures;
+    int polygonVertices;
+    int contacts;
+    int spritesDrawn;
+    int drawCalls;
+    int textureBinds;
+    int texturesLoaded;
+
+    /**
+     * Creates empty stats
+     *
+     * @param window Number of frames kept for the percentiles
+     */
+    TaboxStats(int window) {
+        samples = new long[NAMES.length][window];
+        counts = new int[NAMES.length];
+        cursors = new int[NAMES.length];
+        sorted = new long[window];
+    }
+
+    /**
+     * Adds the time of a section in the last frame
+     *
+     * @param section UPDATE, STEP, FORCES, SYNC or DRAW
+     * @param nanos   Time spent
+     */
+    void record(int section, long nanos) {
+        long[] ring = samples[section];
+        ring[cursors[section]] = nanos;
+        cursors[section] = (cursors[section] + 1) % ring.length;
+        counts[section] = Math.min(counts[section] + 1, ring.length);
+        if (section == sortedSection) {
+            sortedSection = -1;
+        }
+    }
+
+    /**
+     * Get a percentile of the section time over the last frames
+     *
+     * @param section    UPDATE, STEP, FORCES, SYNC or DRAW
+     * @param percentile From 0 to 100
+     * @return Time in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentile(int section, float percentile) {
+        int n = counts[section];
+        if (n == 0) {
+            return 0;
+        }
+        if (sortedSection != section) {
+            System.arraycopy(samples[section], 0, sorted, 0, n);
+            Arrays.sort(sorted, 0, n);
+            sortedSection = section;
+        }
+        int i = (int) Math.ceil(percentile / 100 * n) - 1;
+        return sorted[Math.max(0, Math.min(n - 1, i))];
+    }
+
+    /**
+     * Get the median time of a section
+     *
+     * @param section UPDATE, STEP, FORCES, SYNC or DRAW
+     * @return Time in nanoseconds
+     */
+    public long getP50(int section) {
+        return getPercentile(section, 50);
+    }
+
+    /**
+     * Get the 99th percentile time of a section (the slow frames)
+     *
+     * @param section UPDATE, STEP, FORCES, SYNC or DRAW
+     * @return Time in nanoseconds
+     */
+    public long getP99(int section) {
+        return getPercentile(section, 99);
+    }
+
+    /**
+     * Get the time of a section in the last frame
+     *
+     * @param section UPDATE, STEP, FORCES, SYNC or DRAW
+     * @return Time in nanoseconds
+     */
+    public long getLast(int section) {
+        if (counts[section] == 0) {
+            return 0;
+        }
+        long[] ring = samples[section];
+        return ring[(cursors[section] + ring.length - 1) % ring.length];
+    }
+
+    /**
+     * Receives each profiled frame, see TaboxJfr
+     */
+    interface FrameListener {
+        void frame(long update, long step, long forces, long sync, int bodies, int awake);
+
+        void draw(long draw, int sprites, int drawCalls, int textureBinds);
+    }
+
+    /**
+     * Drops the recorded times
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(cursors, 0);
+        sortedSection = -1;
+    }
+
+    /**
+     * Get the static bodies in the simulation
+     *
+     * @return Static body count
+     */
+    public int getStaticBodies() {
+        return staticBodies;
+    }
+
+    /**
+     * Get the kinematic bodies in the simulation
+     *
+     * @return Kinematic body count
+     */
+    public int getKinematicBodies() {
+        return kinematicBodies;
+    }
+
+    /**
+     * Get the dynamic bodies in the simulation
+     *
+     * @return Dynamic body count
+     */
+    public int getDynamicBodies() {
+        return dynamicBodies;
+    }
+
+    /**
+     * Get the bodies awake in the last update()
+     *
+     * @return Awake dynamic and kinematic bodies
+     */
+    public int getAwakeBodies() {
+        return awakeBodies;
+    }
+
+    /**
+     * Get the fixtures of every body
+     *
+     * @return Fixture count
+     */
+    public int getFixtures() {
+        return fixtures;
+    }
+
+    /**
+     * Get the vertices of all the polygon fixtures, see Tabox2D.setSimplify()
+     *
+     * @return Polygon vertex count
+     */
+    public int getPolygonVertices() {
+        return polygonVertices;
+    }
+
+    /**
+     * Get the contacts in the world, touching or not (AABBs overlap)
+     *
+     * @return Contact count
+     */
+    public int getContacts() {
+        return contacts;
+    }
+
+    /**
+     * Get the sprites submitted in the last draw()
+     *
+     * @return Sprite count
+     */
+    public int getSpritesDrawn() {
+        return spritesDrawn;
+    }
+
+    /**
+     * Get the GL draw calls of the sprite batch in the last draw()
+     *
+     * @return Draw call count
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Get the texture switches in the last draw()
+     *
+     * @return Texture bind count
+     */
+    public int getTextureBinds() {
+        return textureBinds;
+    }
+
+    /**
+     * Get the textures and atlas pages in memory
+     *
+     * @return Loaded texture count
+     */
+    public int getTexturesLoaded() {
+        return texturesLoaded;
+    }
+
+    /**
+     * One line per section (p50/p99 in ms) and the counters, for logs
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            sb.append(NAMES[i]).append(": p50 ").append(getP50(i) / 1e6f)
+                    .append(" ms, p99 ").append(getP99(i) / 1e6f).append(" ms\n");
+        }
+        sb.append("bodies: ").append(staticBodies).append(" static, ")
+                .append(kinematicBodies).append(" kinematic, ")
+                .append(dynamicBodies).append(" dynamic, ")
+                .append(awakeBodies).append(" awake\n");
+        sb.append("fixtures: ").append(fixtures).append(", polygon vertices: ").append(polygonVertices)
+                .append(", contacts: ").append(contacts).append('\n');
+        sb.append("sprites: ").append(spritesDrawn).append(", draw calls: ").append(drawCalls)
+                .append(", texture binds: ").append(textureBinds)
+                .append(", textures loaded: ").append(texturesLoaded);
+        return sb.toString();
+    }
+}
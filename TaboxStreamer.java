@@ -0,0 +1,420 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * TaboxStreamer, splits a level into square chunks and keeps only the ones around
+ * the camera in the world.<br/>
+ * Chunks within the load radius are created and active, chunks within the keep radius
+ * stay in the world but inactive (no collisions, no step cost), farther ones are saved
+ * back to compact bytes and destroyed. A body belongs to the chunk it is in now, not the
+ * one it spawned in: moving bodies are handed over to the chunk they enter. The work is
+ * spread over frames: each update() creates, activates, deactivates or destroys at most
+ * a budget of bodies
+ */
+public class TaboxStreamer {
+
+    private final Tabox2D tabox;
+    private final float chunkSize;
+    private final HashMap<Long, Chunk> chunks;
+    private final List<Chunk> work;
+    private final List<Tabox2D.Tabody> moved;
+    private final List<ByteBuffer> spare;// Buffers of created segments, for the next saves.
+    private int cameraX, cameraY;// Chunk of the camera.
+    private int loadRadius;
+    private int keepRadius;
+    private int budget;
+    private int loadedChunks;
+    private int activeChunks;
+    private int pendingBodies;
+
+    /**
+     * Creates an empty streamer for the given Tabox2D
+     *
+     * @param tabox     The simulation the chunks go into
+     * @param chunkSize Side of each chunk in pixels
+     */
+    public TaboxStreamer(Tabox2D tabox, float chunkSize) {
+        this.tabox = tabox;
+        this.chunkSize = chunkSize;
+        chunks = new HashMap<Long, Chunk>();
+        work = new ArrayList<Chunk>();
+        moved = new ArrayList<Tabox2D.Tabody>();
+        spare = new ArrayList<ByteBuffer>();
+        loadRadius = 1;
+        keepRadius = 2;
+        budget = 64;
+    }
+
+    /**
+     * Sets how far chunks are streamed, in chunks around the camera chunk
+     *
+     * @param loadRadius Chunks this close are loaded and active (default 1, a 3x3 area)
+     * @param keepRadius Chunks this close stay loaded but inactive (default 2), farther ones are released
+     */
+    public void setRadius(int loadRadius, int keepRadius) {
+        if (loadRadius < 0 || keepRadius < loadRadius) {
+            System.err.println("setRadius(), expected 0 <= loadRadius <= keepRadius");
+            return;
+        }
+        this.loadRadius = loadRadius;
+        this.keepRadius = keepRadius;
+    }
+
+    /**
+     * Sets the max bodies created, (de)activated or destroyed per update()
+     *
+     * @param bodiesPerFrame The budget (default 64)
+     */
+    public void setBudget(int bodiesPerFrame) {
+        this.budget = Math.max(1, bodiesPerFrame);
+    }
+
+    /**
+     * Splits the Tabodies of a level into chunks, by the position of each body.<br/>
+     * The level can be a headless Tabox2D used only to build it, dispose it afterwards.
+     * Levels added to the same area are merged
+     *
+     * @param level Tabox2D with the level bodies
+     * @return Number of chunks with bodies
+     */
+    public int addLevel(Tabox2D level) {
+        HashMap<Long, List<Tabox2D.Tabody>> groups = new HashMap<Long, List<Tabox2D.Tabody>>();
+        List<Tabox2D.Tabody> list = level.getTabodies();
+        float meterSize = level.getMeterSize();
+        for (int i = 0; i < list.size(); i++) {
+            Tabox2D.Tabody t = list.get(i);
+            Vector2 pos = t.body.getPosition();
+            long key = key(cell(pos.x * meterSize), cell(pos.y * meterSize));
+            List<Tabox2D.Tabody> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<Tabox2D.Tabody>();
+                groups.put(key, group);
+            }
+            group.add(t);
+        }
+        for (Long key : groups.keySet()) {
+            chunk(key).addSegment(level, groups.get(key));
+        }
+        return groups.size();
+    }
+
+    /**
+     * Streams chunks in and out around the camera, call it once per frame before update()
+     */
+    public void update() {
+        cameraX = cell(tabox.getCameraX());
+        cameraY = cell(tabox.getCameraY());
+        rebucket();
+        work.clear();
+        loadedChunks = 0;
+        activeChunks = 0;
+        pendingBodies = 0;
+        for (Chunk chunk : chunks.values()) {
+            chunk.updateDistance();
+            if (chunk.needsWork(loadRadius, keepRadius)) {
+                work.add(chunk);
+            }
+        }
+        // Nearest chunks first, so what the camera sees is ready first:
+        Collections.sort(work, BY_DISTANCE);
+        int left = budget;
+        for (int i = 0; i < work.size() && left > 0; i++) {
+            left = work.get(i).work(left, loadRadius, keepRadius);
+        }
+        for (Chunk chunk : chunks.values()) {
+            if (!chunk.bodies.isEmpty()) {
+                loadedChunks++;
+                if (chunk.activeCount == chunk.bodies.size() && chunk.distance <= loadRadius) {
+                    activeChunks++;
+                }
+            }
+            if (chunk.needsWork(loadRadius, keepRadius)) {
+                pendingBodies += chunk.bodies.size() + chunk.left;
+            }
+        }
+    }
+
+    /**
+     * Get the number of chunks with bodies in the world
+     *
+     * @return Loaded chunks, active or not
+     */
+    public int getLoadedChunks() {
+        return loadedChunks;
+    }
+
+    /**
+     * Get the number of chunks fully loaded and active
+     *
+     * @return Active chunks
+     */
+    public int getActiveChunks() {
+        return activeChunks;
+    }
+
+    /**
+     * Tells roughly how much streaming work is left after the last update()
+     *
+     * @return Bodies in chunks still changing state
+     */
+    public int getPendingBodies() {
+        return pendingBodies;
+    }
+
+    /**
+     * Get the total number of chunks
+     *
+     * @return Chunk count
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Hands the bodies that left their chunk over to the chunk they are in now,
+     * and drops the ones destroyed by the game
+     */
+    private void rebucket() {
+        float meterSize = tabox.getMeterSize();
+        for (Chunk chunk : chunks.values()) {
+            if (chunk.releasing) {
+                continue;
+            }
+            List<Tabox2D.Tabody> bodies = chunk.bodies;
+            for (int i = 0; i < bodies.size(); ) {
+                Tabox2D.Tabody t = bodies.get(i);
+                if (t.isDestroyed()) {
+                    chunk.remove(i);
+                } else if (cell(t.x * meterSize) != chunk.cx || cell(t.y * meterSize) != chunk.cy) {
+                    chunk.remove(i);
+                    moved.add(t);
+                } else {
+                    i++;
+                }
+            }
+        }
+        for (int i = 0; i < moved.size(); i++) {
+            Tabox2D.Tabody t = moved.get(i);
+            chunk(key(cell(t.x * meterSize), cell(t.y * meterSize))).adopt(t);
+        }
+        moved.clear();
+    }
+
+    private Chunk chunk(long key) {
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk((int) (key >> 32), (int) key);
+            chunk.updateDistance();
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    private int cell(float pixels) {
+        return (int) Math.floor(pixels / chunkSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    private static final Comparator<Chunk> BY_DISTANCE = new Comparator<Chunk>() {
+        @Override
+        public int compare(Chunk a, Chunk b) {
+            return a.distance - b.distance;
+        }
+    };
+
+    /**
+     * Bodies of a chunk not created yet, in the Tabox2D snapshot body layout
+     */
+    private static class Segment {
+        final ByteBuffer data;// Texture table, count and bodies.
+        final ByteBuffer cursor;// Next body to create.
+        final float meterSize;
+        int left;
+
+        Segment(ByteBuffer data, float meterSize) {
+            this.data = data;
+            this.meterSize = meterSize;
+            cursor = data.duplicate();
+            Tabox2D.skipTextureTable(cursor);
+            left = cursor.getInt();
+        }
+    }
+
+    /**
+     * A chunk: its bodies in the world, and the ones saved as bytes until it's loaded
+     */
+    private class Chunk {
+        final int cx, cy;
+        final List<Tabox2D.Tabody> bodies;// In the world, bodies[0, activeCount) are active.
+        final List<Segment> segments;// Saved bodies, oldest first.
+        int left;// Bodies in segments.
+        int activeCount;
+        boolean releasing;// bodies are saved and being destroyed.
+        int distance;// In chunks, to the camera chunk.
+
+        Chunk(int cx, int cy) {
+            this.cx = cx;
+            this.cy = cy;
+            bodies = new ArrayList<Tabox2D.Tabody>();
+            segments = new ArrayList<Segment>();
+        }
+
+        void updateDistance() {
+            distance = Math.max(Math.abs(cx - cameraX), Math.abs(cy - cameraY));
+        }
+
+        /**
+         * Saves the given Tabodies as a new segment, created when the chunk is loaded
+         */
+        void addSegment(Tabox2D owner, List<Tabox2D.Tabody> list) {
+            int size = owner.getBodiesSize(list);
+            ByteBuffer data = null;
+            for (int i = 0; i < spare.size() && data == null; i++) {
+                if (spare.get(i).capacity() >= size) {
+                    data = spare.remove(i);
+                }
+            }
+            if (data == null) {
+                data = ByteBuffer.allocateDirect(size);
+            }
+            data.clear();
+            owner.writeBodies(data, list);
+            data.flip();
+            Segment segment = new Segment(data, owner.getMeterSize());
+            segments.add(segment);
+            left += segment.left;
+        }
+
+        /**
+         * Takes a body that moved into this chunk, as it is (active or not)
+         */
+        void adopt(Tabox2D.Tabody t) {
+            if (releasing) {
+                // Saved with the others then destroyed, the chunk is out of range:
+                bodies.add(t);
+                addSegment(tabox, bodies.subList(bodies.size() - 1, bodies.size()));
+            } else if (t.body.isActive()) {
+                bodies.add(activeCount++, t);
+            } else {
+                bodies.add(t);
+            }
+        }
+
+        /**
+         * Removes bodies[i] in O(1), keeping the active ones first
+         */
+        void remove(int i) {
+            int last = bodies.size() - 1;
+            if (i < activeCount) {
+                activeCount--;
+                bodies.set(i, bodies.get(activeCount));
+                bodies.set(activeCount, bodies.get(last));
+            } else {
+                bodies.set(i, bodies.get(last));
+            }
+            bodies.remove(last);
+        }
+
+        boolean needsWork(int loadRadius, int keepRadius) {
+            if (releasing) {
+                return true;
+            }
+            if (distance <= loadRadius) {
+                return left > 0 || activeCount < bodies.size();
+            }
+            if (distance <= keepRadius) {
+                return activeCount > 0;
+            }
+            return !bodies.isEmpty();
+        }
+
+        /**
+         * Moves the chunk towards its wanted state
+         *
+         * @return The budget left
+         */
+        int work(int budget, int loadRadius, int keepRadius) {
+            if (!releasing && distance > keepRadius) {
+                startRelease();
+            }
+            if (releasing) {
+                while (budget > 0 && !bodies.isEmpty()) {
+                    tabox.destroy(bodies.remove(bodies.size() - 1));
+                    budget--;
+                }
+                releasing = !bodies.isEmpty();
+            } else if (distance <= loadRadius) {
+                while (budget > 0 && activeCount < bodies.size()) {
+                    bodies.get(activeCount++).setActive(true);
+                    budget--;
+                }
+                while (budget > 0 && left > 0 && activeCount == bodies.size()) {
+                    Segment segment = segments.get(0);
+                    int n = Math.min(budget, segment.left);
+                    tabox.addBodies(segment.data, segment.cursor, n, segment.meterSize);
+                    List<Tabox2D.Tabody> all = tabox.getTabodies();
+                    for (int i = all.size() - n; i < all.size(); i++) {
+                        bodies.add(all.get(i));
+                    }
+                    activeCount += n;
+                    segment.left -= n;
+                    left -= n;
+                    budget -= n;
+                    if (segment.left == 0) {
+                        segments.remove(0);
+                        spare.add(segment.data);
+                    }
+                }
+            } else {
+                while (budget > 0 && activeCount > 0) {
+                    bodies.get(--activeCount).setActive(false);
+                    budget--;
+                }
+            }
+            return budget;
+        }
+
+        /**
+         * Saves the bodies as a new segment, so moved bodies keep their state,
+         * then they are destroyed over the next frames. Segments not created yet stay as they are
+         */
+        private void startRelease() {
+            if (!bodies.isEmpty()) {
+                addSegment(tabox, bodies);
+            }
+            activeCount = 0;
+            releasing = true;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+package tabox2d;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * combine(), destroy() and the force and impulse calls, per body
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BodyOpsBenchmark {
+
+    static final int BODIES = 1000;
+    static final int COMPOUNDS = 200;
+
+    /**
+     * A world with BODIES balls, kept for the whole trial
+     */
+    @State(Scope.Thread)
+    public static class Live {
+        Tabox2D t;
+        Tabox2D.Tabody[] balls;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            t = Headless.newTabox(0);
+            balls = Headless.spreadBalls(t, BODIES);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            t.dispose();
+        }
+    }
+
+    /**
+     * A fresh world per invocation, for the calls that use bodies up
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        Tabox2D t;
+        Tabox2D.Tabody[] balls;
+        Tabox2D.Tabody[][] parts;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            t = Headless.newTabox(0);
+            balls = Headless.spreadBalls(t, BODIES);
+            parts = new Tabox2D.Tabody[COMPOUNDS][];
+            for (int i = 0; i < COMPOUNDS; i++) {
+                float x = i * 200;
+                // The bucket of Box2DTest:
+                parts[i] = new Tabox2D.Tabody[]{
+                        t.newBox("d", x, 2000, 30, 150),
+                        t.newBox("d", x + 30, 2000, 90, 30),
+                        t.newBox("d", x + 120, 2000, 30, 150)
+                };
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            t.dispose();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BODIES)
+    public void impulse(Live live) {
+        Tabox2D.Tabody[] balls = live.balls;
+        for (int i = 0; i < balls.length; i++) {
+            balls[i].impulse(0.001f, 0.001f);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BODIES)
+    public void impulseY(Live live) {
+        Tabox2D.Tabody[] balls = live.balls;
+        for (int i = 0; i < balls.length; i++) {
+            balls[i].impulseY(0.001f);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BODIES)
+    public void force(Live live) {
+        Tabox2D.Tabody[] balls = live.balls;
+        for (int i = 0; i < balls.length; i++) {
+            balls[i].force(0.001f, 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BODIES)
+    public void destroy(Fresh fresh) {
+        Tabox2D.Tabody[] balls = fresh.balls;
+        for (int i = 0; i < balls.length; i++) {
+            fresh.t.destroy(balls[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMPOUNDS)
+    public void combine(Fresh fresh) {
+        for (int i = 0; i < COMPOUNDS; i++) {
+            fresh.t.combine("d", fresh.parts[i]);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+package tabox2d;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one body from each factory. Every invocation spawns BATCH bodies
+ * into a fresh world, so the world size doesn't grow between invocations
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FactoryBenchmark {
+
+    static final int BATCH = 500;
+
+    private Tabox2D t;
+    private float[] xs, ys, sizes;
+    private float[] irregular = {160, 50, 220, 50, 240, 70, 220, 90, 160, 90, 140, 70};
+    // Cart: a box on two wheels, as combined bodies and as a template:
+    private TaboxCompound cart = new TaboxCompound().box(0, 20, 120, 30).ball(20, 10, 10).ball(100, 10, 10);
+    // Concave "U" outline, split into convex fixtures (the split is cached after the first one):
+    private float[] concave = {0, 0, 90, 0, 90, 90, 60, 90, 60, 30, 30, 30, 30, 90, 0, 90};
+
+    @Setup(Level.Trial)
+    public void setupArrays() {
+        xs = new float[BATCH];
+        ys = new float[BATCH];
+        sizes = new float[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            xs[i] = (i % 25) * 40;
+            ys[i] = (i / 25) * 40;
+            sizes[i] = 15;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        t = Headless.newTabox(-9.8f);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        t.dispose();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newBall() {
+        for (int i = 0; i < BATCH; i++) {
+            t.newBall("d", xs[i], ys[i], sizes[i]);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newBox() {
+        for (int i = 0; i < BATCH; i++) {
+            t.newBox("d", xs[i], ys[i], sizes[i], sizes[i]);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newOctagon() {
+        // newRegularPoly() -> generateRegularPoly():
+        for (int i = 0; i < BATCH; i++) {
+            t.newOctagon("d", xs[i], ys[i], sizes[i]);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newTriangle() {
+        for (int i = 0; i < BATCH; i++) {
+            t.newTriangle("d", xs[i], ys[i], sizes[i]);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newPoly() {
+        for (int i = 0; i < BATCH; i++) {
+            t.newPoly("d", irregular);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D combine() {
+        for (int i = 0; i < BATCH; i++) {
+            float x = xs[i], y = ys[i];
+            t.combine("d", t.newBox("d", x, y + 20, 120, 30), t.newBall("d", x + 20, y + 10, 10), t.newBall("d", x + 100, y + 10, 10));
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newCompound() {
+        for (int i = 0; i < BATCH; i++) {
+            t.newCompound("d", cart, xs[i], ys[i]);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newConcavePoly() {
+        for (int i = 0; i < BATCH; i++) {
+            t.newPoly("d", concave);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newBalls() {
+        t.newBalls("d", xs, ys, sizes);
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newBoxes() {
+        t.newBoxes("d", xs, ys, sizes, sizes);
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D newRegularPolys() {
+        t.newRegularPolys("d", 8, xs, ys, sizes);
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Tabox2D obtainBall() {
+        for (int i = 0; i < BATCH; i++) {
+            t.obtainBall("d", xs[i], ys[i], sizes[i]);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+package tabox2d;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * update() cost by body count and by the share of awake bodies.<br/>
+ * Bodies don't touch, awake ones move forever (force()) and can't sleep, the others sleep
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UpdateBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int bodies;
+
+    @Param({"1.0", "0.5", "0.1"})
+    public float awakeRatio;
+
+    @Param({"variable", "fixed"})
+    public String step;
+
+    private Tabox2D t;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        t = Headless.newTabox(0);
+        if (step.equals("fixed")) {
+            t.setFixedStep(1 / 60f, 5);
+        }
+        Tabox2D.Tabody[] balls = Headless.spreadBalls(t, bodies);
+        int awake = (int) (bodies * awakeRatio);
+        for (int i = 0; i < balls.length; i++) {
+            if (i < awake) {
+                balls[i].body.setSleepingAllowed(false);
+                balls[i].force(0.01f, 0);
+            } else {
+                balls[i].body.setAwake(false);
+            }
+        }
+        t.update(1 / 60f);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        t.dispose();
+    }
+
+    @Benchmark
+    public void update() {
+        t.update(1 / 60f);
+    }
+}
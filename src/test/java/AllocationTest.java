@@ -0,0 +1,94 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the per-frame paths don't allocate: update() with driven bodies
+ * (constant velocities, impulses and forces every frame)
+ */
+public class AllocationTest {
+
+    private static final int FRAMES = 300;
+
+    @BeforeClass
+    public static void natives() {
+        Headless.init();
+    }
+
+    @Test
+    public void updateWithDrivenBodiesDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = threads();
+        Tabox2D tabox = Headless.newTabox(-9.8f);
+        tabox.setFixedStep(1 / 60f, 5);
+        tabox.newBox("s", 0, 0, 2000, 30);
+        Tabox2D.Tabody[] bodies = new Tabox2D.Tabody[100];
+        for (int i = 0; i < bodies.length; i++) {
+            bodies[i] = i % 2 == 0
+                    ? tabox.newBall("d", 20 + i * 19, 60 + (i % 5) * 25, 8)
+                    : tabox.newBox("d", 20 + i * 19, 60 + (i % 5) * 25, 14, 14);
+        }
+        for (int i = 0; i < bodies.length; i += 4) {
+            bodies[i].force(1, 0);// Constant velocity, applied after each step.
+        }
+
+        // Warm up (class loading, first contacts, list growth, and the JIT recompiling update()
+        // when earlier tests left a different profile, which briefly re-allocates scalar-replaced objects):
+        for (int i = 0; i < FRAMES * 3; i++) {
+            frame(tabox, bodies, i);
+        }
+
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        long overhead = threads.getThreadAllocatedBytes(id) - before;// The call itself.
+        before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < FRAMES; i++) {
+            frame(tabox, bodies, i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before - overhead;
+        assertEquals("bytes allocated by " + FRAMES + " frames", 0, allocated);
+        tabox.dispose();
+    }
+
+    private static void frame(Tabox2D tabox, Tabox2D.Tabody[] bodies, int frame) {
+        for (int i = 1; i < bodies.length; i += 4) {
+            bodies[i].impulse((frame % 2) * 0.01f, 0.02f);
+            bodies[i + 1].impulseX(0.001f).impulseY(0.001f);
+        }
+        tabox.update(1 / 60f);
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("needs the HotSpot allocation counter", bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.backends.headless.HeadlessNativesLoader;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Box2D;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * Loads the desktop natives once, so tests and benchmarks can make Tabox2D instances
+ * without a window (and without a GL context unless one is set with mockGl())
+ */
+final class Headless {
+
+    private static boolean loaded;
+
+    private Headless() {
+    }
+
+    static synchronized void init() {
+        if (!loaded) {
+            HeadlessNativesLoader.load();
+            Box2D.init();
+            loaded = true;
+        }
+    }
+
+    /**
+     * Creates a windowless Tabox2D
+     *
+     * @param gravityY Gravity in Y, 0 for none
+     * @return A new Tabox2D, 800x600 pixels
+     */
+    static Tabox2D newTabox(float gravityY) {
+        init();
+        return new Tabox2D(new Vector2(0, gravityY), 800, 600);
+    }
+
+    /**
+     * Spawns dynamic balls on a grid far enough apart that they never touch
+     *
+     * @param t     The Tabox2D
+     * @param count Number of balls
+     * @return The balls
+     */
+    static Tabox2D.Tabody[] spreadBalls(Tabox2D t, int count) {
+        Tabox2D.Tabody[] balls = new Tabox2D.Tabody[count];
+        int side = (int) Math.ceil(Math.sqrt(count));
+        for (int i = 0; i < count; i++) {
+            balls[i] = t.newBall("d", (i % side) * 50, (i / side) * 50, 10);
+        }
+        return balls;
+    }
+
+    /**
+     * Installs a GL context that accepts every call and draws nothing<br/>
+     * Shaders always compile and link, so SpriteBatch works and counts its render calls
+     */
+    static void mockGl() {
+        init();
+        // Managed shaders and textures are kept per Application:
+        Gdx.app = (Application) Proxy.newProxyInstance(Application.class.getClassLoader(),
+                new Class<?>[]{Application.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("hashCode")) {
+                            return System.identityHashCode(proxy);
+                        } else if (name.equals("equals")) {
+                            return proxy == args[0];
+                        } else if (name.equals("getType")) {
+                            return Application.ApplicationType.HeadlessDesktop;
+                        } else if (method.getReturnType() == int.class) {
+                            return 0;
+                        } else if (method.getReturnType() == long.class) {
+                            return 0L;
+                        }
+                        return null;
+                    }
+                });
+        GL20 gl = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[]{GL20.class},
+                new InvocationHandler() {
+                    private int handles;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+                            int pname = (Integer) args[1];
+                            IntBuffer out = (IntBuffer) args[2];
+                            boolean ok = pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS;
+                            out.put(out.position(), ok ? 1 : 0);
+                            return null;
+                        }
+                        Class<?> type = method.getReturnType();
+                        if (type == int.class) {
+                            return name.startsWith("glGen") || name.startsWith("glCreate") ? ++handles : 0;
+                        } else if (type == boolean.class) {
+                            return false;
+                        } else if (type == float.class) {
+                            return 0f;
+                        } else if (type == String.class) {
+                            return "";
+                        }
+                        return null;
+                    }
+                });
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        Gdx.graphics = new MockGraphics();
+        Gdx.files = new HeadlessFiles();
+    }
+
+    /**
+     * Drops the mock GL context, back to the headless state the other tests expect
+     */
+    static void clearGl() {
+        Gdx.app = null;
+        Gdx.gl = null;
+        Gdx.gl20 = null;
+        Gdx.graphics = null;
+        Gdx.files = null;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.graphics.Pixmap;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxAtlasTest {
+
+    @BeforeClass
+    public static void natives() {
+        Headless.init();
+    }
+
+    private static Pixmap image(int w, int h) {
+        return new Pixmap(w, h, Pixmap.Format.RGBA8888);
+    }
+
+    @Test
+    public void fillRateCountsImagePixels() {
+        // 4 x 4 tiles of 63 pixels fit a 256 page:
+        TaboxAtlas atlas = new TaboxAtlas(256, 0);
+        for (int i = 0; i < 16; i++) {
+            assertTrue(atlas.add("tile" + i, image(63, 63)));
+        }
+        atlas.pack();
+        assertEquals(1, atlas.getPageCount());
+        assertEquals(16f * 63 * 63 / (256 * 256), atlas.getFillRate(), 1e-6f);
+        atlas.dispose();
+    }
+
+    @Test
+    public void overflowOpensNewPages() {
+        TaboxAtlas atlas = new TaboxAtlas(256, 0);
+        for (int i = 0; i < 17; i++) {
+            atlas.add("tile" + i, image(63, 63));
+        }
+        atlas.pack();
+        assertEquals(2, atlas.getPageCount());
+        assertEquals(17f * 63 * 63 / (2 * 256 * 256), atlas.getFillRate(), 1e-6f);
+        assertEquals(0, atlas.getPage("tile0"));
+        atlas.dispose();
+    }
+
+    @Test
+    public void rejectsOversizedAndDuplicateImages() {
+        TaboxAtlas atlas = new TaboxAtlas(128, 2);
+        assertFalse(atlas.add("big", image(126, 10)));
+        assertTrue(atlas.add("ok", image(124, 10)));
+        assertFalse(atlas.add("ok", image(8, 8)));
+        atlas.pack();
+        assertEquals(1, atlas.getNames().size());
+        atlas.dispose();
+
+        TaboxAtlas empty = new TaboxAtlas(128, 0);
+        assertEquals(0, empty.getPageCount());
+        assertEquals(0, empty.getFillRate(), 0);
+        empty.dispose();
+    }
+
+    @Test
+    public void sameImagesGiveSameUVsInAnyOrder() {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 30; i++) {
+            names.add("img" + i);
+        }
+        TaboxAtlas a = mixedAtlas(names);
+        Collections.reverse(names);
+        TaboxAtlas b = mixedAtlas(names);
+        Collections.shuffle(names, new Random(7));
+        TaboxAtlas c = mixedAtlas(names);
+
+        assertEquals(a.getPageCount(), b.getPageCount());
+        assertEquals(a.getNames(), b.getNames());
+        float[] uvA = new float[4], uvB = new float[4], uvC = new float[4];
+        for (String name : names) {
+            assertEquals(a.getPage(name), c.getPage(name));
+            assertArrayEquals(name, a.getUV(name, uvA), b.getUV(name, uvB), 0);
+            assertArrayEquals(name, uvA, c.getUV(name, uvC), 0);
+        }
+        a.dispose();
+        b.dispose();
+        c.dispose();
+    }
+
+    @Test
+    public void packedUVsStayAfterAddingMoreImages() {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            names.add("first" + i);
+        }
+        TaboxAtlas atlas = mixedAtlas(names);
+        float[][] before = new float[names.size()][];
+        for (int i = 0; i < names.size(); i++) {
+            before[i] = atlas.getUV(names.get(i), new float[4]);
+        }
+
+        for (int i = 0; i < 40; i++) {
+            atlas.add("more" + i, image(16 + (i % 5) * 8, 16 + (i % 3) * 8));
+        }
+        atlas.pack();
+        assertEquals(50, atlas.getNames().size());
+        float[] uv = new float[4];
+        for (int i = 0; i < names.size(); i++) {
+            assertArrayEquals(names.get(i), before[i], atlas.getUV(names.get(i), uv), 0);
+        }
+        assertNotNull(atlas.getUV("more39", uv));
+        atlas.dispose();
+    }
+
+    /**
+     * Images of a few sizes, keyed by name so every order adds the same set
+     */
+    private static TaboxAtlas mixedAtlas(List<String> names) {
+        TaboxAtlas atlas = new TaboxAtlas(256, 2);
+        for (String name : names) {
+            int n = Integer.parseInt(name.replaceAll("\\D", ""));
+            atlas.add(name, image(8 + (n % 4) * 12, 8 + (n % 7) * 6));
+        }
+        atlas.pack();
+        return atlas;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TaboxCameraTest {
+
+    @Test
+    public void resizeKeepsTheCameraInstance() {
+        Tabox2D tabox = Headless.newTabox(0);
+        OrthographicCamera camera = tabox.getCamera();
+        assertEquals(800, camera.viewportWidth, 0);
+        assertEquals(600, camera.viewportHeight, 0);
+
+        tabox.setViewportSize(1024, 768);
+        tabox.setMeterSize(50);
+        tabox.setCameraPosition(10, 20);
+        assertSame(camera, tabox.getCamera());
+        assertEquals(1024, camera.viewportWidth, 0);
+        assertEquals(768, camera.viewportHeight, 0);
+        assertEquals(10, camera.position.x, 0);
+        assertEquals(20, camera.position.y, 0);
+        tabox.dispose();
+    }
+}
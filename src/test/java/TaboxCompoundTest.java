@@ -0,0 +1,129 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxCompoundTest {
+
+    private Tabox2D tabox;
+    private TaboxCompound compound;
+
+    /**
+     * A ball next to a 48-point round outline, which simplification can thin out
+     */
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(0);
+        float[] round = new float[96];
+        for (int i = 0; i < 48; i++) {
+            double a = Math.PI * 2 * i / 48;
+            round[i * 2] = 100 + (float) Math.cos(a) * 50;
+            round[i * 2 + 1] = (float) Math.sin(a) * 50;
+        }
+        compound = new TaboxCompound().ball(0, 0, 20).poly(round);
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    /**
+     * The bake for the default simplify settings, the one newCompound() uses
+     */
+    private TaboxCompound.Baked defaultBake() {
+        return compound.bake(tabox, 0, 0, 0.05f);
+    }
+
+    private static float ballRadius(Tabox2D.Tabody t) {
+        for (Fixture f : t.body.getFixtureList()) {
+            if (f.getShape() instanceof CircleShape) {
+                return f.getShape().getRadius();
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void spawnsShareOneBake() {
+        tabox.newCompound("s", compound, 0, 0);
+        TaboxCompound.Baked first = defaultBake();
+        tabox.newCompound("s", compound, 300, 0);
+        assertSame(first, defaultBake());
+        assertEquals(2, tabox.getTabodies().size());
+    }
+
+    @Test
+    public void simplifySettingsRebake() {
+        Tabox2D.Tabody full = tabox.newCompound("s", compound, 0, 0);
+        TaboxCompound.Baked first = defaultBake();
+
+        tabox.setSimplify(3, 0, 0.05f);
+        Tabox2D.Tabody simple = tabox.newCompound("s", compound, 0, 200);
+        TaboxCompound.Baked simplified = compound.bake(tabox, 3, 0, 0.05f);
+        assertNotSame(first, simplified);
+        assertTrue(simple.getVertexCount() < full.getVertexCount());
+        assertEquals(full.getSourceVertexCount(), simple.getSourceVertexCount());
+
+        tabox.setSimplify(3, 5, 0.05f);
+        assertNotSame("collinear angle is part of the key", simplified, compound.bake(tabox, 3, 5, 0.05f));
+        assertNotSame("and the area bound", simplified, compound.bake(tabox, 3, 0, 0.1f));
+
+        // Back to the defaults, the shapes come out as the first time:
+        tabox.setSimplify(0, 0, 0.05f);
+        assertEquals(full.getVertexCount(), tabox.newCompound("s", compound, 0, 400).getVertexCount());
+    }
+
+    @Test
+    public void meterSizeRebakes() {
+        Tabox2D.Tabody before = tabox.newCompound("s", compound, 0, 0);
+        TaboxCompound.Baked first = defaultBake();
+        assertEquals(20 / 100f, ballRadius(before), 1e-5f);
+
+        tabox.setMeterSize(50);
+        Tabox2D.Tabody after = tabox.newCompound("s", compound, 0, 0);
+        assertNotSame(first, defaultBake());
+        assertEquals("same pixels, more meters", 20 / 50f, ballRadius(after), 1e-5f);
+        assertEquals(before.w, after.w, 1e-4f);
+    }
+
+    @Test
+    public void newShapesRebake() {
+        Tabox2D.Tabody one = tabox.newCompound("s", compound, 0, 0);
+        TaboxCompound.Baked first = defaultBake();
+        compound.box(-100, -10, 20, 20);
+        Tabox2D.Tabody two = tabox.newCompound("s", compound, 0, 200);
+        assertNotSame(first, defaultBake());
+        assertEquals(one.body.getFixtureList().size + 1, two.body.getFixtureList().size);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.physics.box2d.BodyDef;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxContactTest {
+
+    private static final int BALLS = 10;
+
+    private Tabox2D tabox;
+    private Tabox2D.Tabody floor;
+    private Tabox2D.Tabody[] balls;
+
+    @Before
+    public void setUp() {
+        tabox = scene();
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    /**
+     * A row of balls sunk into the floor, each one begins touching it in the first step
+     */
+    private Tabox2D scene() {
+        Tabox2D t = Headless.newTabox(-9.8f);
+        t.setFixedStep(1 / 60f, 5);
+        floor = t.newBox("s", 0, 0, 800, 20);
+        balls = new Tabox2D.Tabody[BALLS];
+        for (int i = 0; i < BALLS; i++) {
+            balls[i] = t.newBall("d", 40 + i * 60, 25, 10);
+        }
+        return t;
+    }
+
+    /**
+     * The ball of each event, in order
+     */
+    private static List<Tabox2D.Tabody> events(Tabox2D t, int type) {
+        List<Tabox2D.Tabody> list = new ArrayList<Tabox2D.Tabody>();
+        for (int i = 0; i < t.getContactCount(); i++) {
+            if (t.getContactType(i) == type) {
+                Tabox2D.Tabody a = t.getContactA(i);
+                list.add(a.body.getType() == BodyDef.BodyType.StaticBody ? t.getContactB(i) : a);
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void beginEventsAreRecorded() {
+        tabox.setContactEvents(32, -1);
+        tabox.update(1 / 60f);
+        assertEquals(BALLS, tabox.getContactCount());
+        assertEquals(0, tabox.getContactsDropped());
+        List<Tabox2D.Tabody> begins = events(tabox, Tabox2D.CONTACT_BEGIN);
+        assertEquals(BALLS, begins.size());
+        for (int i = 0; i < tabox.getContactCount(); i++) {
+            assertTrue(tabox.getContactA(i) == floor || tabox.getContactB(i) == floor);
+            assertEquals("on the floor top", 20, tabox.getContactY(i), 2);
+        }
+
+        tabox.update(1 / 60f);
+        assertEquals("only new contacts", 0, tabox.getContactCount());
+    }
+
+    @Test
+    public void fullRingKeepsTheNewestEvents() {
+        tabox.setContactEvents(32, -1);
+        tabox.update(1 / 60f);
+        List<Tabox2D.Tabody> all = events(tabox, Tabox2D.CONTACT_BEGIN);
+        int[] order = new int[BALLS];
+        for (int i = 0; i < BALLS; i++) {
+            order[i] = indexOf(all.get(i));
+        }
+        tabox.dispose();
+
+        // Same scene, a smaller ring:
+        tabox = scene();
+        tabox.setContactEvents(4, -1);
+        tabox.update(1 / 60f);
+        assertEquals(4, tabox.getContactCount());
+        assertEquals(BALLS - 4, tabox.getContactsDropped());
+        List<Tabox2D.Tabody> kept = events(tabox, Tabox2D.CONTACT_BEGIN);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("event " + i, order[BALLS - 4 + i], indexOf(kept.get(i)));
+        }
+
+        tabox.update(1 / 60f);
+        assertEquals("reset each update()", 0, tabox.getContactsDropped());
+    }
+
+    private int indexOf(Tabox2D.Tabody ball) {
+        for (int i = 0; i < balls.length; i++) {
+            if (balls[i] == ball) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void destroyOutsideUpdateKeepsTheEvents() {
+        tabox.setContactEvents(32, -1);
+        tabox.update(1 / 60f);
+        Tabox2D.Tabody a = tabox.getContactA(0);
+        tabox.destroy(balls[3]);
+        tabox.destroy(balls[4]);
+        assertEquals("no CONTACT_END outside update()", BALLS, tabox.getContactCount());
+        assertSame(a, tabox.getContactA(0));
+        assertEquals(BALLS, events(tabox, Tabox2D.CONTACT_BEGIN).size());
+    }
+
+    @Test
+    public void destroyLaterRecordsTheEnd() {
+        tabox.setContactEvents(32, -1);
+        tabox.update(1 / 60f);
+        tabox.destroyLater(balls[3]);
+        tabox.update(1 / 60f);
+        List<Tabox2D.Tabody> ends = events(tabox, Tabox2D.CONTACT_END);
+        assertEquals(1, ends.size());
+        assertSame(balls[3], ends.get(0));
+        assertTrue("no point for end events", Float.isNaN(tabox.getContactX(0)));
+    }
+
+    @Test
+    public void contactFilterSkipsPairs() {
+        for (int i = 0; i < BALLS; i += 2) {
+            balls[i].contactFilter(2, -1);
+        }
+        floor.contactFilter(1, 1);// Reports group 1 only.
+        tabox.setContactEvents(32, -1);
+        tabox.update(1 / 60f);
+        List<Tabox2D.Tabody> begins = events(tabox, Tabox2D.CONTACT_BEGIN);
+        assertEquals(BALLS / 2, begins.size());
+        for (Tabox2D.Tabody ball : begins) {
+            assertEquals(1, indexOf(ball) % 2);
+        }
+    }
+
+    @Test
+    public void impactsAboveTheThreshold() {
+        for (int i = 0; i < BALLS; i++) {
+            tabox.destroy(balls[i]);
+        }
+        Tabox2D.Tabody drop = tabox.newBall("d", 400, 200, 10);
+        tabox.setContactEvents(32, 0.01f);
+        int impacts = 0;
+        for (int frame = 0; frame < 120 && impacts == 0; frame++) {
+            tabox.update(1 / 60f);
+            impacts = 0;
+            for (int i = 0; i < tabox.getContactCount(); i++) {
+                if (tabox.getContactType(i) == Tabox2D.CONTACT_IMPACT) {
+                    assertTrue(tabox.getContactImpulse(i) >= 0.01f);
+                    assertTrue(tabox.getContactA(i) == drop || tabox.getContactB(i) == drop);
+                    impacts++;
+                }
+            }
+        }
+        assertTrue("the drop hit the floor", impacts > 0);
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        tabox.setContactEvents(32, -1);
+        tabox.setContactEvents(0, -1);
+        tabox.update(1 / 60f);
+        assertEquals(0, tabox.getContactCount());
+        assertEquals(0, tabox.getContactsDropped());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxDestroyTest {
+
+    private static final int COUNT = 200;
+
+    private Tabox2D tabox;
+    private List<Tabox2D.Tabody> alive;
+
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(0);
+        alive = new ArrayList<Tabox2D.Tabody>();
+        for (int i = 0; i < COUNT; i++) {
+            // Statics mixed in, they are not movers:
+            String type = i % 3 == 0 ? "s" : "d";
+            alive.add(tabox.newBall(type, (i % 20) * 40, (i / 20) * 40, 10));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    /**
+     * Every Tabody knows its slot, and the movers fill 0..n-1 without holes
+     */
+    private void assertIndices() {
+        List<Tabox2D.Tabody> list = tabox.getTabodies();
+        assertEquals(new HashSet<Tabox2D.Tabody>(alive), new HashSet<Tabox2D.Tabody>(list));
+        assertEquals(alive.size(), list.size());
+        Set<Integer> moverSlots = new HashSet<Integer>();
+        int movers = 0;
+        for (int i = 0; i < list.size(); i++) {
+            Tabox2D.Tabody t = list.get(i);
+            assertEquals("index of slot " + i, i, t.index);
+            assertSame(t, t.body.getUserData());
+            if (t.moverIndex >= 0) {
+                assertTrue("mover slot used twice", moverSlots.add(t.moverIndex));
+                movers++;
+            }
+        }
+        for (int i = 0; i < movers; i++) {
+            assertTrue("mover slot " + i, moverSlots.contains(i));
+        }
+    }
+
+    @Test
+    public void randomDestroysKeepIndices() {
+        Random random = new Random(5);
+        while (alive.size() > 0) {
+            Tabox2D.Tabody t = alive.remove(random.nextInt(alive.size()));
+            tabox.destroy(t);
+            assertEquals(-1, t.index);
+            assertEquals("no longer a mover", -1, t.moverIndex);
+            if (alive.size() % 7 == 0) {
+                tabox.update(1 / 60f);// Indices survive steps too.
+            }
+            assertIndices();
+        }
+    }
+
+    @Test
+    public void destroyingTwiceIsIgnored() {
+        Tabox2D.Tabody t = alive.remove(10);
+        tabox.destroy(t);
+        tabox.destroy(t);
+        tabox.destroyLater(t);
+        tabox.update(1 / 60f);
+        assertIndices();
+    }
+
+    @Test
+    public void destroyLaterWhileIterating() {
+        List<Tabox2D.Tabody> list = tabox.getTabodies();
+        for (int i = 0; i < list.size(); i++) {
+            if (i % 2 == 0) {
+                tabox.destroyLater(list.get(i));
+                tabox.destroyLater(list.get(i));// Queued once.
+            }
+        }
+        assertEquals("nothing moved yet", COUNT, list.size());
+        List<Tabox2D.Tabody> queued = new ArrayList<Tabox2D.Tabody>();
+        for (int i = 0; i < COUNT; i += 2) {
+            queued.add(alive.get(i));
+        }
+        alive.removeAll(queued);
+        tabox.update(1 / 60f);
+        assertIndices();
+        for (Tabox2D.Tabody t : queued) {
+            assertEquals(-1, t.index);
+        }
+    }
+
+    @Test
+    public void destroyLastAndFirst() {
+        Tabox2D.Tabody last = alive.remove(alive.size() - 1);
+        tabox.destroy(last);
+        assertIndices();
+        Tabox2D.Tabody first = alive.remove(0);
+        Tabox2D.Tabody tail = tabox.getTabodies().get(tabox.getTabodies().size() - 1);
+        tabox.destroy(first);
+        assertSame("the tail fills the hole", tail, tabox.getTabodies().get(0));
+        assertIndices();
+        assertFalse(tabox.getTabodies().contains(first));
+    }
+}
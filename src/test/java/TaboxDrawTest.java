@@ -0,0 +1,139 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.files.FileHandle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxDrawTest {
+
+    private static final int SPRITES = 300;
+    private static final int TEXTURES = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Tabox2D tabox;
+    private String[] paths;
+
+    @Before
+    public void setUp() throws Exception {
+        Headless.mockGl();
+        paths = new String[TEXTURES];
+        for (int i = 0; i < TEXTURES; i++) {
+            File png = new File(folder.getRoot(), "tex" + i + ".png");
+            Pixmap pixmap = new Pixmap(8, 8, Pixmap.Format.RGBA8888);
+            PixmapIO.writePNG(new FileHandle(png), pixmap);
+            pixmap.dispose();
+            paths[i] = png.getAbsolutePath();
+        }
+        tabox = Headless.newTabox(0);
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+        Headless.clearGl();
+    }
+
+    @Test
+    public void interleavedTexturesAreBatchedByTexture() {
+        // Creation order switches texture on every Tabody, one bind and one flush each unbatched:
+        for (int i = 0; i < SPRITES; i++) {
+            tabox.newBall("d", (i % 20) * 40, (i / 20) * 40, 10).texture(paths[i % TEXTURES]);
+        }
+        tabox.setProfiling(true);
+        tabox.draw();
+
+        TaboxStats stats = tabox.getStats();
+        assertEquals(TEXTURES, tabox.getTexturesLoaded());
+        assertEquals(SPRITES, stats.getSpritesDrawn());
+        assertEquals(TEXTURES, stats.getTextureBinds());
+        assertEquals(TEXTURES, stats.getDrawCalls());
+        assertTrue(stats.getTextureBinds() < SPRITES);
+        assertTrue(stats.getDrawCalls() < SPRITES);
+    }
+
+    @Test
+    public void newTexturesKeepTheBatches() {
+        for (int i = 0; i < SPRITES; i++) {
+            tabox.newBall("d", (i % 20) * 40, (i / 20) * 40, 10).texture(paths[i % 2]);
+        }
+        tabox.draw();
+        assertEquals(2, tabox.getTextureBinds());
+
+        // A Tabody created after the first frame still joins its texture's batch:
+        tabox.newBox("d", 0, 0, 10, 10).texture(paths[0]);
+        tabox.newBox("d", 0, 0, 10, 10).texture(paths[2]);
+        tabox.draw();
+        assertEquals(TEXTURES, tabox.getTextureBinds());
+        assertEquals(TEXTURES, tabox.getDrawCalls());
+    }
+
+    @Test
+    public void cullingSkipsOffScreenSprites() {
+        tabox.setCulling(true);
+        for (int i = 0; i < 10; i++) {
+            tabox.newBall("s", 100 + i * 60, 300, 10).texture(paths[0]);// On screen.
+            tabox.newBall("s", 3000 + i * 60, 300, 10).texture(paths[1]);// Far right.
+            tabox.newBall("s", 100 + i * 60, -2000, 10).texture(paths[2]);// Far below.
+        }
+        tabox.draw();
+        assertEquals(10, tabox.getSpritesDrawn());
+        assertEquals(1, tabox.getTextureBinds());
+
+        tabox.setCameraPosition(3270, 300);
+        tabox.draw();
+        assertEquals(10, tabox.getSpritesDrawn());
+    }
+
+    @Test
+    public void bigSpritesReachIntoTheView() {
+        tabox.setCulling(true);
+        for (int i = 0; i < 10; i++) {
+            tabox.newBall("s", 1000 + i * 60, 300, 10).texture(paths[0]);
+        }
+        // Off screen, but its sprite is 40 times the body:
+        Tabox2D.Tabody backdrop = tabox.newBox("s", 1000, 300, 10, 10).texture(paths[1], "i", 40);
+        tabox.draw();
+        assertEquals("only the backdrop overlaps the view", 1, tabox.getSpritesDrawn());
+
+        tabox.destroy(backdrop);
+        tabox.draw();
+        assertEquals(0, tabox.getSpritesDrawn());
+        tabox.setCameraPosition(1270, 300);
+        tabox.draw();
+        assertEquals(10, tabox.getSpritesDrawn());
+    }
+}
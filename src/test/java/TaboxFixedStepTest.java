@@ -0,0 +1,127 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.math.MathUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxFixedStepTest {
+
+    private static final float STEP = 1 / 60f;
+    private static final float SPEED = 2;// Meters per second.
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Tabox2D tabox;
+    private Tabox2D.Tabody ball;
+    private float startX;
+
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(0);
+        tabox.setFixedStep(STEP, 5);
+        ball = tabox.newBall("d", 100, 300, 10);
+        ball.body.setLinearVelocity(SPEED, 0);
+        startX = ball.body.getPosition().x;
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+        Headless.clearGl();
+    }
+
+    /**
+     * Whole steps taken so far, from the distance the ball travelled
+     */
+    private int stepsTaken() {
+        return Math.round((ball.body.getPosition().x - startX) / (SPEED * STEP));
+    }
+
+    @Test
+    public void leftoverTimeBecomesAlpha() {
+        tabox.update(STEP * 0.5f);
+        assertEquals("not a whole step yet", 0, stepsTaken());
+        assertEquals(0.5f, tabox.getAlpha(), 1e-4f);
+
+        tabox.update(STEP * 0.75f);
+        assertEquals(1, stepsTaken());
+        assertEquals(0.25f, tabox.getAlpha(), 1e-4f);
+
+        tabox.update(STEP * 2.5f);
+        assertEquals(3, stepsTaken());
+        assertEquals(0.75f, tabox.getAlpha(), 1e-4f);
+    }
+
+    @Test
+    public void hitchesAreCappedAtMaxSubSteps() {
+        tabox.update(1);// 60 steps of time.
+        assertEquals(5, stepsTaken());
+        assertTrue("the rest is dropped", tabox.getAlpha() >= 0 && tabox.getAlpha() < 1);
+        tabox.update(STEP);
+        assertEquals(6, stepsTaken());
+    }
+
+    @Test
+    public void statesAreTheLastTwoSteps() {
+        tabox.update(STEP * 3.5f);
+        assertEquals(startX + 2 * SPEED * STEP, ball.prevX, 1e-4f);
+        assertEquals(startX + 3 * SPEED * STEP, ball.x, 1e-4f);
+    }
+
+    @Test
+    public void spritesAreInterpolatedByAlpha() throws Exception {
+        Headless.mockGl();
+        File png = new File(folder.getRoot(), "ball.png");
+        Pixmap pixmap = new Pixmap(8, 8, Pixmap.Format.RGBA8888);
+        PixmapIO.writePNG(new FileHandle(png), pixmap);
+        pixmap.dispose();
+        ball.texture(png.getAbsolutePath());
+
+        tabox.update(STEP * 1.25f);
+        float expected = MathUtils.lerp(ball.prevX, ball.x, 0.25f) * tabox.getMeterSize();
+        assertEquals(expected, ball.sprite.getX() + ball.sprite.getWidth() / 2, 1e-3f);
+        assertTrue("between the two states", ball.sprite.getX() + ball.sprite.getWidth() / 2 < ball.x * tabox.getMeterSize());
+    }
+
+    @Test
+    public void variableStepHasNoLeftover() {
+        tabox.setFixedStep(0, 1);
+        tabox.update(STEP * 0.5f);
+        assertEquals(1, tabox.getAlpha(), 0);
+        assertEquals(startX + SPEED * STEP * 0.5f, ball.x, 1e-4f);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxGeometryTest {
+
+    private static final int MAX = Tabox2D.MAX_POLYGON_VERTICES;
+
+    // Counterclockwise outlines, in pixels:
+    private static final float[] SQUARE = {0, 0, 100, 0, 100, 100, 0, 100};
+    private static final float[] L_SHAPE = {0, 0, 100, 0, 100, 40, 40, 40, 40, 100, 0, 100};
+    private static final float[] U_SHAPE = {0, 0, 120, 0, 120, 100, 80, 100, 80, 40, 40, 40, 40, 100, 0, 100};
+
+    private static float[] reversed(float[] pts) {
+        float[] r = new float[pts.length];
+        for (int i = 0; i < pts.length; i += 2) {
+            r[pts.length - 2 - i] = pts[i];
+            r[pts.length - 1 - i] = pts[i + 1];
+        }
+        return r;
+    }
+
+    /**
+     * Counterclockwise regular polygon centered on the origin
+     */
+    private static float[] circle(int points, float radius) {
+        float[] pts = new float[points * 2];
+        for (int i = 0; i < points; i++) {
+            double a = Math.PI * 2 * i / points;
+            pts[i * 2] = (float) Math.cos(a) * radius;
+            pts[i * 2 + 1] = (float) Math.sin(a) * radius;
+        }
+        return pts;
+    }
+
+    private static float areaError(float[] pts, int[] kept) {
+        float area = TaboxGeometry.signedArea(pts);
+        return Math.abs(TaboxGeometry.signedArea(piecePoints(pts, kept)) - area) / area;
+    }
+
+    private static float[] piecePoints(float[] pts, int[] piece) {
+        float[] out = new float[piece.length * 2];
+        for (int i = 0; i < piece.length; i++) {
+            out[i * 2] = pts[piece[i] * 2];
+            out[i * 2 + 1] = pts[piece[i] * 2 + 1];
+        }
+        return out;
+    }
+
+    /**
+     * Every piece convex, counterclockwise and small enough, covering the whole outline
+     */
+    private static void assertValidSplit(float[] pts, int[][] pieces) {
+        float area = 0;
+        for (int[] piece : pieces) {
+            assertTrue(piece.length >= 3 && piece.length <= MAX);
+            float[] p = piecePoints(pts, piece);
+            assertTrue(TaboxGeometry.isConvex(p));
+            assertTrue("counterclockwise", TaboxGeometry.signedArea(p) > 0);
+            area += TaboxGeometry.signedArea(p);
+        }
+        assertEquals(Math.abs(TaboxGeometry.signedArea(pts)), area, 1e-2f);
+    }
+
+    @Test
+    public void convexOutlinePassesThrough() {
+        int[][] pieces = TaboxGeometry.decompose(SQUARE, MAX);
+        assertEquals(1, pieces.length);
+        assertArrayEquals(new int[]{0, 1, 2, 3}, pieces[0]);
+    }
+
+    @Test
+    public void clockwiseConvexOutlineComesBackCounterclockwise() {
+        float[] cw = reversed(SQUARE);
+        assertTrue(TaboxGeometry.signedArea(cw) < 0);
+        int[][] pieces = TaboxGeometry.decompose(cw, MAX);
+        assertEquals(1, pieces.length);
+        assertValidSplit(cw, pieces);
+    }
+
+    @Test
+    public void concaveOutlinesSplitIntoConvexPieces() {
+        int[][] l = TaboxGeometry.decompose(L_SHAPE, MAX);
+        assertEquals(2, l.length);
+        assertValidSplit(L_SHAPE, l);
+
+        int[][] u = TaboxGeometry.decompose(U_SHAPE, MAX);
+        assertEquals(3, u.length);
+        assertValidSplit(U_SHAPE, u);
+    }
+
+    @Test
+    public void windingDoesNotChangeTheSplit() {
+        float[] cw = reversed(U_SHAPE);
+        int[][] pieces = TaboxGeometry.decompose(cw, MAX);
+        assertEquals(3, pieces.length);
+        assertValidSplit(cw, pieces);
+        assertEquals(2, TaboxGeometry.decompose(reversed(L_SHAPE), MAX).length);
+    }
+
+    @Test
+    public void bigConvexOutlineIsCutToTheVertexLimit() {
+        float[] circle = circle(20, 100);
+        int[][] pieces = TaboxGeometry.decompose(circle, MAX);
+        assertEquals(3, pieces.length);// 20 points need 18 triangles, 6 per octagon.
+        assertValidSplit(circle, pieces);
+    }
+
+    @Test
+    public void splitsAreCached() {
+        Tabox2D tabox = Headless.newTabox(0);
+        int[][] first = tabox.decomposition(U_SHAPE, 0, 0, 0.05f);
+        assertSame("second call is a cache hit", first, tabox.decomposition(U_SHAPE.clone(), 0, 0, 0.05f));
+        assertNotSame("other simplify settings, other entry", first, tabox.decomposition(U_SHAPE, 5, 0, 0.05f));
+
+        tabox.setPolyCacheSize(0);
+        assertNotSame(first, tabox.decomposition(U_SHAPE, 0, 0, 0.05f));
+        tabox.dispose();
+    }
+
+    @Test
+    public void outlineWithoutAreaMakesNoBody() {
+        Tabox2D tabox = Headless.newTabox(0);
+        float[] line = {0, 0, 50, 0, 100, 0, 50, 0.0001f};
+        assertNull(tabox.newPoly("d", line));
+        assertEquals(0, tabox.getTabodies().size());
+
+        TaboxCompound thin = new TaboxCompound().poly(line);
+        assertNull(tabox.newCompound("d", thin, 0, 0));
+        assertEquals(0, tabox.getTabodies().size());
+        tabox.dispose();
+    }
+
+    @Test
+    public void simplifyDropsPointsWithinTolerance() {
+        float[] round = circle(64, 100);
+        int[] kept = TaboxGeometry.simplify(round, 2, 0, 1);
+        assertTrue(kept.length > 3 && kept.length < 64);
+        for (int i = 1; i < kept.length; i++) {
+            assertTrue("in order", kept[i] > kept[i - 1]);
+        }
+        // A 2px sagitta on a radius of 100 leaves about 16 sides, 2.6% less area:
+        assertTrue(areaError(round, kept) < 0.03f);
+    }
+
+    @Test
+    public void simplifyRetriesWhenTheAreaChangesTooMuch() {
+        float[] round = circle(64, 100);
+        int[] coarse = TaboxGeometry.simplify(round, 30, 0, 1);
+        assertTrue("one coarse pass loses more than 5%", areaError(round, coarse) > 0.05f);
+
+        int[] bounded = TaboxGeometry.simplify(round, 30, 0, 0.05f);
+        assertTrue(areaError(round, bounded) <= 0.05f);
+        assertTrue("finer than the coarse pass", bounded.length > coarse.length);
+        assertTrue("still simplified", bounded.length < 64);
+    }
+
+    @Test
+    public void simplifyGivesUpAndKeepsTheOutline() {
+        float[] round = circle(64, 100);
+        int[] kept = TaboxGeometry.simplify(round, 30, 10, 0);
+        assertEquals(64, kept.length);
+        for (int i = 0; i < kept.length; i++) {
+            assertEquals(i, kept[i]);
+        }
+    }
+
+    @Test
+    public void collinearPointsAreMerged() {
+        float[] dotted = {0, 0, 50, 0, 100, 0, 100, 50, 100, 100, 50, 100.2f, 0, 100, 0, 50};
+        int[] kept = TaboxGeometry.simplify(dotted, 0, 1, 0.05f);
+        assertArrayEquals(new int[]{0, 2, 4, 6}, kept);
+    }
+
+    @Test
+    public void tabodiesCountSimplifiedVertices() {
+        Tabox2D tabox = Headless.newTabox(0);
+        float[] round = circle(64, 100);
+        Tabox2D.Tabody full = tabox.newPoly("s", round);
+        tabox.setSimplify(2, 0, 0.05f);
+        Tabox2D.Tabody simple = tabox.newPoly("s", round);
+        assertEquals(64, full.getSourceVertexCount());
+        assertEquals(64, simple.getSourceVertexCount());
+        assertTrue(simple.getVertexCount() < full.getVertexCount());
+
+        Tabox2D.Tabody override = tabox.newPoly("s", round, 0);// No RDP for this one.
+        assertEquals(full.getVertexCount(), override.getVertexCount());
+        tabox.dispose();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.physics.box2d.Body;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxPoolTest {
+
+    private Tabox2D tabox;
+
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(-9.8f);
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    @Test
+    public void reusedTabodyStartsLikeANewOne() {
+        Tabox2D.Tabody fresh = tabox.newBall("d", 0, 0, 10);
+        float mass = fresh.getMass();
+        tabox.destroy(fresh);
+
+        Tabox2D.Tabody ball = tabox.obtainBall("d", 100, 100, 10);
+        ball.contactFilter(4, 2).density(5);
+        Body body = ball.body;
+        body.setLinearDamping(3);
+        body.setAngularDamping(2);
+        body.setGravityScale(0);
+        body.setFixedRotation(true);
+        body.setLinearVelocity(10, 10);
+        tabox.free(ball);
+
+        Tabox2D.Tabody again = tabox.obtainBall("d", 300, 300, 10);
+        assertSame("taken from the pool", ball, again);
+        assertEquals(1, tabox.getPoolHits());
+        assertEquals(1, again.contactBits);
+        assertEquals(-1, again.contactMask);
+        assertEquals(0, body.getLinearDamping(), 0);
+        assertEquals(0, body.getAngularDamping(), 0);
+        assertEquals(1, body.getGravityScale(), 0);
+        assertFalse(body.isFixedRotation());
+        assertEquals(0, body.getLinearVelocity().len(), 0);
+        assertEquals(mass, again.getMass(), 1e-6f);
+    }
+
+    @Test
+    public void queuedTabodyFreedBeforeTheFlushSurvivesReuse() {
+        Tabox2D.Tabody ball = tabox.obtainBall("d", 100, 100, 10);
+        tabox.destroyLater(ball);
+        tabox.free(ball);
+        Tabox2D.Tabody again = tabox.obtainBall("d", 200, 200, 10);
+        assertSame(ball, again);
+
+        tabox.update(1 / 60f);
+        assertFalse("the old queue entry is gone", again.isDestroyed());
+        assertEquals(1, tabox.getTabodies().size());
+
+        // Not stuck as queued, a new destroyLater() still works:
+        tabox.destroyLater(again);
+        tabox.update(1 / 60f);
+        assertTrue(again.isDestroyed());
+        assertEquals(0, tabox.getTabodies().size());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TaboxQueryTest {
+
+    private static final float EPSILON = 0.01f;
+
+    private Tabox2D tabox;
+    private Tabox2D.Tabody ball;
+    private Tabox2D.Tabody box;
+    private Tabox2D.Tabody far;
+    private Tabox2D.Tabody pair;// Two fixtures, one Tabody.
+    private final Tabox2D.Tabody[] out = new Tabox2D.Tabody[8];
+
+    /**
+     * A row of static shapes on y = 100, from left to right
+     */
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(0);
+        ball = tabox.newBall("s", 100, 100, 20);
+        box = tabox.newBox("s", 200, 80, 40, 40);
+        far = tabox.newBall("s", 400, 100, 20);
+        pair = tabox.newCompound("s", new TaboxCompound().ball(-15, 0, 10).ball(15, 0, 10), 600, 100);
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    private HashSet<Tabox2D.Tabody> found(int count) {
+        return new HashSet<Tabox2D.Tabody>(Arrays.asList(out).subList(0, count));
+    }
+
+    @Test
+    public void aabbFindsTheOverlappingBodies() {
+        int count = tabox.queryAABB(90, 90, 130, 20, out);
+        assertEquals(new HashSet<Tabox2D.Tabody>(Arrays.asList(ball, box)), found(count));
+        assertEquals(0, tabox.queryAABB(0, 300, 800, 100, out));
+    }
+
+    @Test
+    public void aabbReportsEachBodyOnce() {
+        int count = tabox.queryAABB(550, 50, 100, 100, out);
+        assertEquals(1, count);
+        assertSame(pair, out[0]);
+    }
+
+    @Test
+    public void fullResultsStopTheQuery() {
+        Tabox2D.Tabody[] one = new Tabox2D.Tabody[1];
+        assertEquals(1, tabox.queryAABB(0, 0, 800, 200, one));
+        assertEquals(2, tabox.rayCastAll(0, 100, 800, 100, new Tabox2D.Tabody[2]));
+    }
+
+    @Test
+    public void pointTestsTheShapeNotItsBox() {
+        assertEquals(1, tabox.queryPoint(105, 95, out));
+        assertSame(ball, out[0]);
+        // Inside the ball's AABB, outside the circle:
+        assertEquals(0, tabox.queryPoint(117, 117, out));
+        assertEquals(1, tabox.queryPoint(239, 119, out));
+        assertSame(box, out[0]);
+        assertEquals("the gap between the pair", 0, tabox.queryPoint(600, 109, out));
+    }
+
+    @Test
+    public void rayCastReturnsTheClosestHit() {
+        assertSame(ball, tabox.rayCast(0, 100, 800, 100));
+        assertEquals(80, tabox.getRayHitX(), EPSILON);
+        assertEquals(100, tabox.getRayHitY(), EPSILON);
+        assertEquals(-1, tabox.getRayNormalX(), EPSILON);
+        assertEquals(0, tabox.getRayNormalY(), EPSILON);
+        assertEquals(0.1f, tabox.getRayFraction(), 1e-4f);
+
+        // From the other side:
+        assertSame(pair, tabox.rayCast(800, 100, 0, 100));
+        assertEquals(625, tabox.getRayHitX(), EPSILON);
+        assertEquals(1, tabox.getRayNormalX(), EPSILON);
+    }
+
+    @Test
+    public void rayCastMisses() {
+        assertNull(tabox.rayCast(0, 300, 800, 300));
+        assertEquals(1, tabox.getRayFraction(), 0);
+        assertNull("stops short", tabox.rayCast(0, 100, 70, 100));
+        assertNull("zero length", tabox.rayCast(100, 100, 100, 100));
+        assertEquals(0, tabox.rayCastAll(100, 100, 100, 100, out));
+    }
+
+    @Test
+    public void rayCastAllIsSortedByDistance() {
+        int count = tabox.rayCastAll(0, 100, 800, 100, out);
+        assertEquals(4, count);
+        assertSame(ball, out[0]);
+        assertSame(box, out[1]);
+        assertSame(far, out[2]);
+        assertSame(pair, out[3]);
+
+        count = tabox.rayCastAll(800, 100, 0, 100, out);
+        assertEquals(4, count);
+        assertSame(pair, out[0]);
+        assertSame(ball, out[3]);
+    }
+
+    @Test
+    public void destroyedAndFreedBodiesAreNotFound() {
+        tabox.destroy(box);
+        Tabox2D.Tabody pooled = tabox.obtainBall("s", 300, 100, 10);
+        tabox.free(pooled);
+        int count = tabox.rayCastAll(0, 100, 800, 100, out);
+        assertEquals(3, count);
+        assertEquals(new HashSet<Tabox2D.Tabody>(Arrays.asList(ball, far, pair)), found(count));
+        assertEquals(0, tabox.queryPoint(300, 100, out));
+    }
+}
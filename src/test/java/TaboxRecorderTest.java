@@ -0,0 +1,79 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TaboxRecorderTest {
+
+    @BeforeClass
+    public static void natives() {
+        Headless.init();
+    }
+
+    @Test
+    public void replaysTexturedSessionHeadless() {
+        Tabox2D tabox = Headless.newTabox(-9.8f);
+        tabox.newBox("s", 0, 0, 800, 30).texture("ground.png");
+        TaboxRecorder recorder = new TaboxRecorder();
+        recorder.start(tabox);
+        tabox.newBall("d", 100, 200, 20).texture("ball.png");
+        tabox.newPoly("d", new float[]{300, 100, 360, 100, 330, 160});
+        for (int i = 0; i < 60; i++) {
+            tabox.update(1 / 60f);
+        }
+        recorder.stop();
+
+        TaboxRecorder replay = new TaboxRecorder(recorder.getLog());
+        Tabox2D target = Headless.newTabox(-9.8f);
+        assertEquals(60, replay.replay(target, true));
+        assertEquals(-1, replay.getDivergedStep());
+        assertEquals(3, target.getTabodies().size());
+        assertEquals("ground.png", target.getTabodies().get(0).texturePath);
+        assertEquals(tabox.getStateChecksum(), target.getStateChecksum());
+    }
+
+    @Test
+    public void rejectedCallsAreNotLogged() {
+        ByteBuffer clean = record(false);
+        ByteBuffer withRejected = record(true);
+        assertEquals(clean, withRejected);
+    }
+
+    private ByteBuffer record(boolean rejected) {
+        Tabox2D tabox = Headless.newTabox(-9.8f);
+        TaboxRecorder recorder = new TaboxRecorder();
+        recorder.start(tabox);
+        tabox.newBall("d", 100, 200, 20);
+        if (rejected) {
+            assertNull(tabox.newPoly("d", new float[]{0, 0, 10, 10}));
+        }
+        tabox.update(1 / 60f);
+        recorder.stop();
+        return recorder.getLog();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxSceneTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void natives() {
+        Headless.init();
+    }
+
+    @Test
+    public void compilesTexturedSceneHeadless() throws Exception {
+        assertNull("the offline compile has no GL context", Gdx.gl);
+        FileHandle file = new FileHandle(new File(folder.getRoot(), "level.tbxs"));
+        int size = TaboxScene.compile(new TaboxScene.Builder() {
+            @Override
+            public void build(Tabox2D tabox) {
+                tabox.newBox("s", 0, 0, 800, 30).texture("ground.png");
+                tabox.newBall("d", 100, 200, 20).texture("ball.png", "e", 1.5f);
+                tabox.newBall("d", 200, 200, 20).texture("ball.png", "e", 1.5f);
+                tabox.newTriangle("d", 300, 200, 20);
+            }
+        }, 100, file);
+        assertTrue(size > 0);
+
+        Tabox2D tabox = Headless.newTabox(-9.8f);
+        Tabox2D.Tabody[] loaded = TaboxScene.load(tabox, file);
+        assertEquals(4, loaded.length);
+        assertEquals("ground.png", loaded[0].texturePath);
+        assertEquals("i", loaded[0].textureScope);
+        assertEquals("ball.png", loaded[1].texturePath);
+        assertEquals("e", loaded[1].textureScope);
+        assertEquals(1.5f, loaded[2].textureGap, 0);
+        assertNull(loaded[3].texturePath);
+        assertNull("nothing is drawn without GL", loaded[1].sprite);
+        assertEquals(0, tabox.getTexturesLoaded());
+
+        // Destroying them releases the entries that were never loaded:
+        List<Tabox2D.Tabody> all = tabox.getTabodies();
+        while (!all.isEmpty()) {
+            tabox.destroy(all.get(all.size() - 1));
+        }
+        tabox.dispose();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxSleepTest {
+
+    private Tabox2D tabox;
+    private Tabox2D.Tabody[] stack;
+
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(-9.8f);
+        tabox.newBox("s", 0, 0, 800, 20);
+        for (int i = 0; i < 10; i++) {
+            tabox.newBox("d", 20 + i * 50, 20, 30, 30);
+        }
+        stack = new Tabox2D.Tabody[4];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = tabox.newBox("d", 600, 20 + i * 30, 30, 30);
+        }
+        frames(300);
+        assertEquals("everything settled", 0, tabox.getAwakeCount());
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    /**
+     * Steps and checks that the awake set holds exactly the bodies Box2D has awake,
+     * with their transforms read
+     */
+    private void frames(int n) {
+        for (int i = 0; i < n; i++) {
+            tabox.update(1 / 60f);
+            int awake = 0;
+            for (Tabox2D.Tabody t : tabox.getTabodies()) {
+                if (t.body.isAwake() && t.moverIndex >= 0) {
+                    awake++;
+                    assertTrue("awake body missing from the set", t.awakeListed);
+                    assertEquals(t.body.getPosition().x, t.x, 0);
+                    assertEquals(t.body.getPosition().y, t.y, 0);
+                }
+            }
+            assertEquals(awake, tabox.getAwakeCount());
+        }
+    }
+
+    @Test
+    public void hitWakesTheWholeStack() {
+        float bottomY = stack[0].y;
+        tabox.newBox("d", 605, 400, 20, 20);
+        boolean bottomWoke = false;
+        for (int i = 0; i < 120; i++) {
+            frames(1);
+            bottomWoke |= stack[0].body.isAwake();
+        }
+        assertTrue("woken through the stack contacts", bottomWoke);
+        assertEquals(bottomY, stack[0].y, 0.01f);
+        frames(900);
+        assertEquals(0, tabox.getAwakeCount());
+    }
+
+    @Test
+    public void impulseWakesASleepingBody() {
+        Tabox2D.Tabody box = tabox.getTabodies().get(3);
+        float x = box.x;
+        box.impulse(0, 5);
+        frames(10);
+        assertTrue(box.y > 0.6f);
+        assertEquals(x, box.x, 0.01f);
+    }
+
+    @Test
+    public void destroyingTheSupportWakesWhatItHeld() {
+        Tabox2D.Tabody top = stack[3];
+        float y = top.y;
+        tabox.destroy(stack[2]);
+        frames(30);
+        assertTrue("fell onto the next box", top.y < y - 0.2f);
+        frames(300);
+        assertEquals(0, tabox.getAwakeCount());
+    }
+}
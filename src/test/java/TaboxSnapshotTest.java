@@ -0,0 +1,117 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxSnapshotTest {
+
+    private Tabox2D tabox;
+
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(-9.8f);
+        tabox.newBox("s", 0, 0, 800, 20);
+        for (int i = 0; i < 40; i++) {
+            tabox.newBall("d", 50 + (i % 10) * 70, 60 + (i / 10) * 50, 12 + i % 3);
+            tabox.newBox("d", 60 + (i % 10) * 70, 300 + (i / 10) * 40, 20, 16).rotate(i * 9);
+        }
+        frames(30);
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    private void frames(int n) {
+        for (int i = 0; i < n; i++) {
+            tabox.update(1 / 60f);
+        }
+    }
+
+    private ByteBuffer snapshot() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(tabox.getSnapshotSize());
+        assertEquals(buffer.capacity(), tabox.snapshot(buffer));
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    public void restoredSimulationsStepTheSame() {
+        long saved = tabox.getStateChecksum();
+        ByteBuffer snapshot = snapshot();
+
+        assertTrue(tabox.restore(snapshot.duplicate()));
+        assertEquals("restore gives back the saved state", saved, tabox.getStateChecksum());
+        frames(120);
+        long first = tabox.getStateChecksum();
+        assertNotEquals("the bodies moved", saved, first);
+
+        assertTrue(tabox.restore(snapshot.duplicate()));
+        assertEquals(saved, tabox.getStateChecksum());
+        frames(120);
+        assertEquals(first, tabox.getStateChecksum());
+    }
+
+    @Test
+    public void handlesMissingFromTheSnapshotAreDestroyed() {
+        Tabox2D.Tabody kept = tabox.getTabodies().get(5);
+        ByteBuffer snapshot = snapshot();
+        Tabox2D.Tabody later = tabox.newBall("d", 400, 500, 10);
+        Tabox2D.Tabody pooled = tabox.obtainBall("d", 300, 500, 10);
+        tabox.free(pooled);
+
+        assertTrue(tabox.restore(snapshot));
+        assertSame(kept, tabox.getTabodies().get(5));
+        assertFalse(kept.isDestroyed());
+        assertTrue(later.isDestroyed());
+        assertNull("its body went with the old world", later.body);
+        assertNull(pooled.body);
+        assertEquals(0, tabox.getPooledCount());
+        tabox.destroy(later);// Ignored, not a crash.
+        tabox.free(later);
+    }
+
+    @Test
+    public void obtainedTabodiesStillGoBackToTheirPool() {
+        Tabox2D.Tabody ball = tabox.obtainBall("d", 300, 500, 10);
+        ByteBuffer snapshot = snapshot();
+        assertTrue(tabox.restore(snapshot));
+
+        assertFalse(ball.isDestroyed());
+        tabox.free(ball);
+        assertEquals(1, tabox.getPooledCount());
+        assertSame(ball, tabox.obtainBall("d", 100, 500, 10));
+    }
+}
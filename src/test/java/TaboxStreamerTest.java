@@ -0,0 +1,125 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaboxStreamerTest {
+
+    private Tabox2D tabox;
+    private TaboxStreamer streamer;
+
+    @Before
+    public void setUp() {
+        Tabox2D level = Headless.newTabox(0);
+        level.newBall("d", 100, 100, 10);
+        level.newBall("d", 120, 100, 10);
+        level.newBox("s", 200, 200, 20, 20);
+
+        tabox = Headless.newTabox(0);
+        streamer = new TaboxStreamer(tabox, 500);
+        streamer.setRadius(0, 0);
+        assertEquals(1, streamer.addLevel(level));
+        level.dispose();
+        tabox.setCameraPosition(250, 250);
+        frames(3);
+    }
+
+    @Test
+    public void bodiesBelongToTheChunkTheyAreIn() {
+        assertEquals(3, tabox.getTabodies().size());
+        Tabox2D.Tabody far = bodyNear(100);
+        Tabox2D.Tabody near = bodyNear(120);
+        moveTo(far, 1100, 100);// Chunk (2, 0), off screen.
+        moveTo(near, 600, 100);// Chunk (1, 0), where the camera goes.
+
+        tabox.setCameraPosition(750, 250);
+        frames(3);
+        assertFalse("moved into the visible chunk, kept", near.isDestroyed());
+        assertTrue(near.body.isActive());
+        assertTrue("its new chunk is off screen, released", far.isDestroyed());
+        assertEquals(1, tabox.getTabodies().size());
+        assertEquals(1, streamer.getLoadedChunks());
+
+        // Saved where it was, not where it spawned:
+        tabox.setCameraPosition(1250, 250);
+        frames(3);
+        assertNull(bodyNear(100));
+        Tabox2D.Tabody back = bodyNear(1100);
+        assertNotNull(back);
+        assertTrue(back.body.isActive());
+
+        // And the spawn chunk still has only the box:
+        tabox.setCameraPosition(250, 250);
+        frames(3);
+        assertEquals(1, tabox.getTabodies().size());
+        assertNotNull(bodyNear(210));
+    }
+
+    @Test
+    public void inactiveBodiesLeaveTheMovers() {
+        streamer.setRadius(0, 1);
+        tabox.setProfiling(true);
+        tabox.setCameraPosition(750, 250);// Chunk (0, 0) is kept, inactive.
+        frames(2);
+        assertEquals(3, tabox.getTabodies().size());
+        assertEquals(0, tabox.getStats().getAwakeBodies());
+        for (Tabox2D.Tabody t : tabox.getTabodies()) {
+            assertFalse(t.body.isActive());
+            assertEquals(-1, t.moverIndex);
+        }
+        tabox.setCameraPosition(250, 250);
+        frames(2);
+        assertEquals(2, tabox.getStats().getAwakeBodies());
+    }
+
+    private void frames(int n) {
+        for (int i = 0; i < n; i++) {
+            streamer.update();
+            tabox.update(1 / 60f);
+        }
+    }
+
+    private void moveTo(Tabox2D.Tabody t, float x, float y) {
+        t.body.setTransform(x / tabox.getMeterSize(), y / tabox.getMeterSize(), 0);
+        t.body.setAwake(true);
+        tabox.update(1 / 60f);
+    }
+
+    private Tabox2D.Tabody bodyNear(float x) {
+        List<Tabox2D.Tabody> list = tabox.getTabodies();
+        for (int i = 0; i < list.size(); i++) {
+            if (Math.abs(list.get(i).body.getPosition().x * tabox.getMeterSize() - x) < 1) {
+                return list.get(i);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.Texture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TaboxTextureTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Tabox2D tabox;
+    private String red;
+    private String blue;
+
+    @Before
+    public void setUp() throws Exception {
+        Headless.mockGl();
+        red = png("red.png");
+        blue = png("blue.png");
+        tabox = Headless.newTabox(0);
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+        Headless.clearGl();
+    }
+
+    private String png(String name) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Pixmap pixmap = new Pixmap(8, 8, Pixmap.Format.RGBA8888);
+        PixmapIO.writePNG(new FileHandle(file), pixmap);
+        pixmap.dispose();
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Textures still alive on the GPU, disposed ones leave libGDX's managed list
+     */
+    private static int managed() {
+        return Texture.getNumManagedTextures();
+    }
+
+    @Test
+    public void sharedTextureIsLoadedOnce() {
+        Tabox2D.Tabody a = tabox.newBall("d", 100, 100, 10).texture(red);
+        Tabox2D.Tabody b = tabox.newBall("d", 200, 100, 10).texture(red);
+        assertSame(a.sprite.getTexture(), b.sprite.getTexture());
+        assertEquals(1, tabox.getTexturesLoaded());
+        assertEquals(1, managed());
+    }
+
+    @Test
+    public void lastDestroyReleasesTheTexture() {
+        Tabox2D.Tabody a = tabox.newBall("d", 100, 100, 10).texture(red);
+        Tabox2D.Tabody b = tabox.newBall("d", 200, 100, 10).texture(red);
+        tabox.destroy(a);
+        assertEquals("still used by b", 1, tabox.getTexturesLoaded());
+        assertEquals(1, managed());
+        tabox.destroy(b);
+        assertEquals(0, tabox.getTexturesLoaded());
+        assertEquals(0, managed());
+
+        // Loaded again from the file on the next use:
+        Tabox2D.Tabody c = tabox.newBall("d", 100, 100, 10).texture(red);
+        assertEquals(1, tabox.getTexturesLoaded());
+        assertNotSame(a.sprite.getTexture(), c.sprite.getTexture());
+    }
+
+    @Test
+    public void retexturingReleasesTheOldTexture() {
+        Tabox2D.Tabody a = tabox.newBall("d", 100, 100, 10).texture(red);
+        a.texture(blue);
+        assertEquals(1, tabox.getTexturesLoaded());
+        a.texture(blue);// Same texture, one reference still.
+        tabox.destroy(a);
+        assertEquals(0, tabox.getTexturesLoaded());
+        assertEquals(0, managed());
+    }
+
+    @Test
+    public void destroyLaterReleasesAfterTheStep() {
+        Tabox2D.Tabody a = tabox.newBall("d", 100, 100, 10).texture(red);
+        tabox.destroyLater(a);
+        assertEquals(1, tabox.getTexturesLoaded());
+        tabox.update(1 / 60f);
+        assertEquals(0, tabox.getTexturesLoaded());
+        assertEquals(0, managed());
+    }
+
+    @Test
+    public void disposeReleasesEveryTexture() {
+        for (int i = 0; i < 10; i++) {
+            tabox.newBall("d", i * 30, 100, 10).texture(i % 2 == 0 ? red : blue);
+        }
+        assertEquals(2, managed());
+        tabox.dispose();
+        assertEquals(0, managed());
+        tabox = Headless.newTabox(0);// For tearDown().
+    }
+
+    @Test
+    public void headlessKeepsOnlyThePath() {
+        Headless.clearGl();
+        Tabox2D headless = Headless.newTabox(0);
+        Tabox2D.Tabody a = headless.newBall("d", 100, 100, 10).texture(red);
+        assertNull(a.sprite);
+        assertEquals(red, a.texturePath);
+        assertEquals(0, headless.getTexturesLoaded());
+        headless.dispose();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+    Copyright (c) 2015-2019 Gustavo Lara
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+    
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+    
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+*/
+
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TaboxTransformTest {
+
+    private static final float EPSILON = 1e-3f;
+
+    private Tabox2D tabox;
+
+    @Before
+    public void setUp() {
+        tabox = Headless.newTabox(0);
+        tabox.setTransformExport(true);
+        Tabox2D.Tabody[] balls = Headless.spreadBalls(tabox, 30);
+        for (int i = 0; i < balls.length; i++) {
+            balls[i].body.setLinearVelocity(i * 0.1f, -i * 0.05f);
+            balls[i].body.setAngularVelocity(i * 0.2f);
+        }
+        tabox.newBox("s", 400, -500, 100, 10);// Static, never awake.
+    }
+
+    @After
+    public void tearDown() {
+        tabox.dispose();
+    }
+
+    /**
+     * Each Tabody's stride in the buffer holds its own state, in getTabodies() order
+     */
+    private void assertLayout() {
+        FloatBuffer buffer = tabox.getTransforms();
+        List<Tabox2D.Tabody> list = tabox.getTabodies();
+        float meter = tabox.getMeterSize();
+        assertEquals(list.size(), tabox.getTransformCount());
+        assertEquals(list.size() * Tabox2D.TRANSFORM_STRIDE, buffer.limit());
+        for (int i = 0; i < list.size(); i++) {
+            Tabox2D.Tabody t = list.get(i);
+            int offset = i * Tabox2D.TRANSFORM_STRIDE;
+            String slot = "slot " + i;
+            assertEquals(slot, t.body.getPosition().x * meter, buffer.get(offset + Tabox2D.TRANSFORM_X), EPSILON);
+            assertEquals(slot, t.body.getPosition().y * meter, buffer.get(offset + Tabox2D.TRANSFORM_Y), EPSILON);
+            assertEquals(slot, t.body.getAngle() * MathUtils.radiansToDegrees,
+                    buffer.get(offset + Tabox2D.TRANSFORM_ANGLE), EPSILON);
+            assertEquals(slot, t.body.getLinearVelocity().x * meter, buffer.get(offset + Tabox2D.TRANSFORM_VX), EPSILON);
+            assertEquals(slot, t.body.getLinearVelocity().y * meter, buffer.get(offset + Tabox2D.TRANSFORM_VY), EPSILON);
+            // Statics are never reported awake:
+            boolean awake = t.body.getType() != BodyDef.BodyType.StaticBody && t.body.isAwake();
+            assertEquals(slot, awake ? 1 : 0, buffer.get(offset + Tabox2D.TRANSFORM_AWAKE), 0);
+        }
+    }
+
+    @Test
+    public void bufferFollowsTheBodies() {
+        for (int i = 0; i < 10; i++) {
+            tabox.update(1 / 60f);
+            assertLayout();
+        }
+    }
+
+    @Test
+    public void destroyMovesTheLastStrideIntoTheHole() {
+        tabox.update(1 / 60f);
+        Random random = new Random(11);
+        for (int i = 0; i < 10; i++) {
+            List<Tabox2D.Tabody> list = tabox.getTabodies();
+            tabox.destroy(list.get(random.nextInt(list.size())));
+            tabox.update(1 / 60f);
+            assertLayout();
+        }
+    }
+
+    @Test
+    public void bufferGrowsWithNewBodies() {
+        tabox.update(1 / 60f);
+        for (int i = 0; i < 100; i++) {
+            tabox.newBall("d", 2000 + (i % 10) * 50, (i / 10) * 50, 10);
+        }
+        tabox.update(1 / 60f);
+        assertLayout();
+    }
+
+    @Test
+    public void exportOffDropsTheBuffer() {
+        tabox.update(1 / 60f);
+        assertNotNull(tabox.getTransforms());
+        tabox.setTransformExport(false);
+        assertNull(tabox.getTransforms());
+        assertEquals(0, tabox.getTransformCount());
+        tabox.update(1 / 60f);
+        assertNull(tabox.getTransforms());
+    }
+}